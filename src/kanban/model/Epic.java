@@ -2,46 +2,46 @@ package kanban.model;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 public class Epic extends Task {
-    protected final ArrayList<Integer> subtasks;
+    protected final SortedIntSet subtasks;
     private LocalDateTime endTime;
 
     public Epic() {
         super();
-        this.subtasks = new ArrayList<>();
+        this.subtasks = new SortedIntSet();
     }
 
     public Epic(String name, String description) {
         super(name, description);
-        this.subtasks = new ArrayList<>();
+        this.subtasks = new SortedIntSet();
     }
 
     public Epic(String name, String description, LocalDateTime startTime, Duration duration) {
         super(name, description, startTime, duration);
-        this.subtasks = new ArrayList<>();
+        this.subtasks = new SortedIntSet();
     }
 
     public Epic(int id, String name, String description) {
         super(id, TaskStatus.NEW, name, description);
-        this.subtasks = new ArrayList<>();
+        this.subtasks = new SortedIntSet();
     }
 
     public Epic(int id, TaskStatus status, String name, String description) {
         super(id, status, name, description);
-        this.subtasks = new ArrayList<>();
+        this.subtasks = new SortedIntSet();
     }
 
     public Epic(int id, TaskStatus status, String name, String description, LocalDateTime startTime, Duration duration) {
         super(id, status, name, description, startTime, duration);
-        this.subtasks = new ArrayList<>();
+        this.subtasks = new SortedIntSet();
     }
 
     public Epic(Epic epic) {
         super(epic);
-        this.subtasks = new ArrayList<>(epic.subtasks);
+        this.subtasks = new SortedIntSet(epic.subtasks);
         this.endTime = epic.getEndTime();
     }
 
@@ -70,14 +70,36 @@ public class Epic extends Task {
         return endTime;
     }
 
-    public ArrayList<Integer> getSubtasks() {
-        return subtasks;
+    /**
+     * id подзадач по возрастанию, только для чтения. Изменяется через addSubtask, removeSubtask и clearSubtasks.
+     */
+    public List<Integer> getSubtasks() {
+        return subtasks.asList();
     }
 
-    public void setSubtasks(ArrayList<Integer> subtasks) {
+    public void setSubtasks(List<Integer> subtasks) {
         this.subtasks.clear();
         if (subtasks == null) return;
-        this.subtasks.addAll(subtasks);
+        subtasks.forEach(this.subtasks::add);
+    }
+
+    public boolean addSubtask(int subtaskId) {
+        return subtasks.add(subtaskId);
+    }
+
+    public boolean removeSubtask(int subtaskId) {
+        return subtasks.remove(subtaskId);
+    }
+
+    /**
+     * Заменяет id подзадач копией id подзадач другого эпика.
+     */
+    public void copySubtasksFrom(Epic epic) {
+        subtasks.copyFrom(epic.subtasks);
+    }
+
+    public void clearSubtasks() {
+        subtasks.clear();
     }
 
     public void setEndTime(LocalDateTime endTime) {
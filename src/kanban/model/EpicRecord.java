@@ -0,0 +1,57 @@
+package kanban.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Неизменяемое значение эпика. Статус и время эпика вычисляются менеджером по подзадачам и хранятся
+ * здесь как есть.
+ */
+public record EpicRecord(Integer id, TaskStatus status, String name, String description, List<Integer> subtasks,
+                         LocalDateTime startTime, Duration duration, LocalDateTime endTime) implements TaskValue {
+
+    public EpicRecord {
+        subtasks = subtasks == null ? List.of() : List.copyOf(subtasks);
+    }
+
+    public static EpicRecord of(Epic epic) {
+        return new EpicRecord(epic.getId(), epic.getStatus(), epic.getName(), epic.getDescription(),
+                epic.getSubtasks(), epic.getStartTime(), epic.getDuration(), epic.getEndTime());
+    }
+
+    public EpicRecord withId(Integer id) {
+        return new EpicRecord(id, status, name, description, subtasks, startTime, duration, endTime);
+    }
+
+    public EpicRecord withStatus(TaskStatus status) {
+        return new EpicRecord(id, status, name, description, subtasks, startTime, duration, endTime);
+    }
+
+    public EpicRecord withName(String name) {
+        return new EpicRecord(id, status, name, description, subtasks, startTime, duration, endTime);
+    }
+
+    public EpicRecord withDescription(String description) {
+        return new EpicRecord(id, status, name, description, subtasks, startTime, duration, endTime);
+    }
+
+    public EpicRecord withSubtasks(List<Integer> subtasks) {
+        return new EpicRecord(id, status, name, description, subtasks, startTime, duration, endTime);
+    }
+
+    @Override
+    public TaskTypes type() {
+        return TaskTypes.EPIC;
+    }
+
+    @Override
+    public Epic toTask() {
+        Epic epic = new Epic(name, description, startTime, duration);
+        if (id != null) epic.setId(id);
+        epic.setStatus(status);
+        epic.setSubtasks(subtasks);
+        epic.setEndTime(endTime);
+        return epic;
+    }
+}
@@ -0,0 +1,10 @@
+package kanban.model;
+
+/**
+ * Источник name и description задачи, которые декодируются только при первом обращении к ним.
+ */
+public interface LazyTaskText {
+    String name();
+
+    String description();
+}
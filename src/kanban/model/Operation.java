@@ -0,0 +1,56 @@
+package kanban.model;
+
+/**
+ * Одна операция пакетного изменения: добавление или обновление задачи либо удаление задачи по id.
+ * <p>
+ * В пакете подзадача может ссылаться на эпик, созданный раньше в том же пакете: отрицательный id эпика -k
+ * означает результат k-й операции пакета (нумерация с 1).
+ */
+public class Operation {
+    public enum Type { ADD, UPDATE, DELETE }
+
+    private final Type type;
+    private final TaskTypes taskType;
+    private final Task task;
+    private final Integer id;
+
+    public Operation(Type type, Task task) {
+        this.type = type;
+        this.taskType = task == null ? null : task.getTaskType();
+        this.task = task;
+        this.id = task == null ? null : task.getId();
+    }
+
+    public Operation(Type type, TaskTypes taskType, Integer id) {
+        this.type = type;
+        this.taskType = taskType;
+        this.task = null;
+        this.id = id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public TaskTypes getTaskType() {
+        return taskType;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "Operation{" +
+                "type=" + type +
+                ", taskType=" + taskType +
+                ", id=" + id +
+                ", task=" + task +
+                '}';
+    }
+}
@@ -0,0 +1,119 @@
+package kanban.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Множество int в отсортированном массиве без упаковки в Integer. Поиск двоичный, добавление id больше
+ * всех имеющихся (обычный случай: id выдаются по возрастанию) - в конец массива, удаление - сдвигом хвоста.
+ */
+public final class SortedIntSet {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] values;
+    private int size;
+
+    public SortedIntSet() {
+        values = EMPTY;
+    }
+
+    public SortedIntSet(SortedIntSet other) {
+        values = other.size == 0 ? EMPTY : Arrays.copyOf(other.values, other.size);
+        size = other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("Индекс %s вне множества размера %s", index, size));
+        }
+        return values[index];
+    }
+
+    public boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    public boolean add(int value) {
+        int index = size > 0 && values[size - 1] < value ? size : Arrays.binarySearch(values, 0, size, value);
+        if (index < size && index >= 0) return false;
+        int position = index < 0 ? -index - 1 : index;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(values, position, values, position + 1, size - position);
+        values[position] = value;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) return false;
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Заменяет содержимое копией другого множества.
+     */
+    public void copyFrom(SortedIntSet other) {
+        if (values.length < other.size) {
+            values = new int[other.size];
+        }
+        System.arraycopy(other.values, 0, values, 0, other.size);
+        size = other.size;
+    }
+
+    /**
+     * Представление для чтения в виде списка по возрастанию. Элементы упаковываются при обращении.
+     */
+    public List<Integer> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                return SortedIntSet.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SortedIntSet other = (SortedIntSet) o;
+        return Arrays.equals(values, 0, size, other.values, 0, other.size);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + values[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return asList().toString();
+    }
+}
@@ -0,0 +1,57 @@
+package kanban.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Неизменяемое значение подзадачи.
+ */
+public record SubtaskRecord(Integer id, TaskStatus status, String name, String description, Integer epicId,
+                            LocalDateTime startTime, Duration duration) implements TaskValue {
+
+    public static SubtaskRecord of(Subtask subtask) {
+        return new SubtaskRecord(subtask.getId(), subtask.getStatus(), subtask.getName(), subtask.getDescription(),
+                subtask.epic, subtask.getStartTime(), subtask.getDuration());
+    }
+
+    public SubtaskRecord withId(Integer id) {
+        return new SubtaskRecord(id, status, name, description, epicId, startTime, duration);
+    }
+
+    public SubtaskRecord withStatus(TaskStatus status) {
+        return new SubtaskRecord(id, status, name, description, epicId, startTime, duration);
+    }
+
+    public SubtaskRecord withName(String name) {
+        return new SubtaskRecord(id, status, name, description, epicId, startTime, duration);
+    }
+
+    public SubtaskRecord withDescription(String description) {
+        return new SubtaskRecord(id, status, name, description, epicId, startTime, duration);
+    }
+
+    public SubtaskRecord withEpicId(Integer epicId) {
+        return new SubtaskRecord(id, status, name, description, epicId, startTime, duration);
+    }
+
+    public SubtaskRecord withStartTime(LocalDateTime startTime) {
+        return new SubtaskRecord(id, status, name, description, epicId, startTime, duration);
+    }
+
+    public SubtaskRecord withDuration(Duration duration) {
+        return new SubtaskRecord(id, status, name, description, epicId, startTime, duration);
+    }
+
+    @Override
+    public TaskTypes type() {
+        return TaskTypes.SUBTASK;
+    }
+
+    @Override
+    public Subtask toTask() {
+        Subtask subtask = new Subtask(name, description, epicId, startTime, duration);
+        if (id != null) subtask.setId(id);
+        subtask.setStatus(status);
+        return subtask;
+    }
+}
@@ -11,6 +11,7 @@ public class Task {
     private String description;
     private LocalDateTime startTime;
     private Duration duration;
+    private transient volatile LazyTaskText lazyText;
 
     public Task() {
         this.status = TaskStatus.NEW;
@@ -75,8 +76,8 @@ public class Task {
         return "Task{" +
                 "id=" + id +
                 ", status=" + status +
-                ", name='" + name + '\'' +
-                ", description='" + description + '\'' +
+                ", name='" + getName() + '\'' +
+                ", description='" + getDescription() + '\'' +
                 ", startTime='" + startTime + '\'' +
                 ", duration='" + duration + '\'' +
                 ", endTime='" + getEndTime() + '\'' +
@@ -87,7 +88,8 @@ public class Task {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Task task = (Task) o;
-        return Objects.equals(id, task.id) && Objects.equals(name, task.name) && Objects.equals(description, task.description)
+        return Objects.equals(id, task.id) && Objects.equals(getName(), task.getName())
+                && Objects.equals(getDescription(), task.getDescription())
                 && Objects.equals(status, task.status) && Objects.equals(startTime, task.startTime)
                 && Objects.equals(duration, task.duration);
     }
@@ -100,11 +102,22 @@ public class Task {
         return status;
     }
 
+    private void materializeText() {
+        LazyTaskText text = lazyText;
+        if (text != null) {
+            name = text.name();
+            description = text.description();
+            lazyText = null;
+        }
+    }
+
     public String getName() {
+        materializeText();
         return name;
     }
 
     public String getDescription() {
+        materializeText();
         return description;
     }
 
@@ -137,13 +150,33 @@ public class Task {
     }
 
     public void setName(String name) {
+        materializeText();
         this.name = name;
     }
 
     public void setDescription(String description) {
+        materializeText();
         this.description = description;
     }
 
+    /**
+     * Откладывает декодирование name и description до первого обращения к ним.
+     */
+    public void setLazyText(LazyTaskText lazyText) {
+        this.lazyText = lazyText;
+    }
+
+    /**
+     * Источник еще не декодированных name и description или null, если они уже декодированы.
+     */
+    public LazyTaskText getLazyText() {
+        return lazyText;
+    }
+
+    public boolean isTextMaterialized() {
+        return lazyText == null;
+    }
+
     public void setStartTime(LocalDateTime startTime) {
         this.startTime = startTime;
     }
@@ -0,0 +1,53 @@
+package kanban.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Неизменяемое значение обычной задачи.
+ */
+public record TaskRecord(Integer id, TaskStatus status, String name, String description,
+                         LocalDateTime startTime, Duration duration) implements TaskValue {
+
+    public static TaskRecord of(Task task) {
+        return new TaskRecord(task.getId(), task.getStatus(), task.getName(), task.getDescription(),
+                task.getStartTime(), task.getDuration());
+    }
+
+    public TaskRecord withId(Integer id) {
+        return new TaskRecord(id, status, name, description, startTime, duration);
+    }
+
+    public TaskRecord withStatus(TaskStatus status) {
+        return new TaskRecord(id, status, name, description, startTime, duration);
+    }
+
+    public TaskRecord withName(String name) {
+        return new TaskRecord(id, status, name, description, startTime, duration);
+    }
+
+    public TaskRecord withDescription(String description) {
+        return new TaskRecord(id, status, name, description, startTime, duration);
+    }
+
+    public TaskRecord withStartTime(LocalDateTime startTime) {
+        return new TaskRecord(id, status, name, description, startTime, duration);
+    }
+
+    public TaskRecord withDuration(Duration duration) {
+        return new TaskRecord(id, status, name, description, startTime, duration);
+    }
+
+    @Override
+    public TaskTypes type() {
+        return TaskTypes.TASK;
+    }
+
+    @Override
+    public Task toTask() {
+        Task task = new Task(name, description, startTime, duration);
+        if (id != null) task.setId(id);
+        task.setStatus(status);
+        return task;
+    }
+}
@@ -0,0 +1,39 @@
+package kanban.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Неизменяемое значение задачи. В отличие от Task, Subtask и Epic его нельзя изменить после создания,
+ * поэтому один экземпляр можно без копирования отдавать нескольким читателям и хранить в истории.
+ * Изменения делаются методами with..., которые возвращают новое значение; toTask() строит изменяемую
+ * задачу прежней модели.
+ */
+public sealed interface TaskValue permits TaskRecord, SubtaskRecord, EpicRecord {
+    Integer id();
+
+    TaskStatus status();
+
+    String name();
+
+    String description();
+
+    LocalDateTime startTime();
+
+    Duration duration();
+
+    TaskTypes type();
+
+    /**
+     * Новая изменяемая задача с теми же полями.
+     */
+    Task toTask();
+
+    static TaskValue of(Task task) {
+        return switch (task.getTaskType()) {
+            case TASK -> TaskRecord.of(task);
+            case SUBTASK -> SubtaskRecord.of((Subtask) task);
+            case EPIC -> EpicRecord.of((Epic) task);
+        };
+    }
+}
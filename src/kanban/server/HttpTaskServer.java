@@ -2,10 +2,16 @@ package kanban.server;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import kanban.exception.ManagerSaveException;
+import kanban.model.Epic;
+import kanban.model.Operation;
+import kanban.model.Subtask;
+import kanban.model.Task;
 import kanban.server.handlers.*;
-import kanban.server.typeadapters.DurationTypeAdapter;
-import kanban.server.typeadapters.LocalDateTimeTypeAdapter;
+import kanban.server.typeadapters.*;
+import kanban.service.ConcurrentTaskManager;
 import kanban.service.Managers;
 import kanban.service.TaskManager;
 
@@ -16,13 +22,41 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class HttpTaskServer {
     public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
     public static final int PORT = 8080;
+    public static final int DEFAULT_BACKLOG = 0;
+    public static final Duration DEFAULT_STOP_DELAY = Duration.ZERO;
+    public static final Duration EXECUTOR_TERMINATION_TIMEOUT = Duration.ofSeconds(5);
+
+    /**
+     * Способ обработки запросов: SINGLE_THREAD - все запросы в потоке-диспетчере HttpServer (как раньше),
+     * VIRTUAL_THREADS - виртуальный поток на запрос, THREAD_POOL - ограниченный пул платформенных потоков.
+     */
+    public enum ExecutorMode {
+        SINGLE_THREAD,
+        VIRTUAL_THREADS,
+        THREAD_POOL
+    }
+
     private final TaskManager taskManager;
+    private final int port;
+    private final ExecutorMode executorMode;
+    private int threadPoolSize;
+    private int backlog;
+    private Duration stopDelay;
     private HttpServer server;
+    private ExecutorService executor;
     protected final Gson gson;
+    protected final Gson prettyGson;
+    private final ResponseCache responseCache = new ResponseCache();
+    private final ClientHttpFilter clientFilter = new ClientHttpFilter();
+    // отличает ETag разных запусков сервера, у которых ревизии менеджера начинаются заново
+    private final String entityTagPrefix = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
 
     public TaskManager getTaskManager() {
         return taskManager;
@@ -36,35 +70,140 @@ public class HttpTaskServer {
         return gson;
     }
 
+    /**
+     * Gson с форматированным выводом для запросов с параметром pretty=true.
+     */
+    public Gson getPrettyGson() {
+        return prettyGson;
+    }
+
+    /**
+     * Слабый ETag для ревизии менеджера: тело ответа зависит еще и от сжатия и форматирования.
+     */
+    public String getEntityTag(long revision) {
+        return String.format("W/\"%s-%s\"", entityTagPrefix, revision);
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public ExecutorMode getExecutorMode() {
+        return executorMode;
+    }
+
+    public void setThreadPoolSize(int threadPoolSize) {
+        if (threadPoolSize < 1) {
+            throw new IllegalArgumentException("Размер пула потоков должен быть положительным.");
+        }
+        this.threadPoolSize = threadPoolSize;
+    }
+
+    public void setBacklog(int backlog) {
+        this.backlog = backlog;
+    }
+
+    public void setStopDelay(Duration stopDelay) {
+        if (stopDelay.isNegative()) {
+            throw new IllegalArgumentException("Время ожидания остановки не может быть отрицательным.");
+        }
+        this.stopDelay = stopDelay;
+    }
+
     public HttpTaskServer(TaskManager taskManager) {
-        this.taskManager = taskManager;
+        this(taskManager, PORT, ExecutorMode.SINGLE_THREAD);
+    }
+
+    /**
+     * При многопоточной обработке менеджер оборачивается в ConcurrentTaskManager, если он еще не потокобезопасен.
+     */
+    public HttpTaskServer(TaskManager taskManager, int port, ExecutorMode executorMode) {
+        this.taskManager = executorMode == ExecutorMode.SINGLE_THREAD || taskManager instanceof ConcurrentTaskManager
+                ? taskManager : new ConcurrentTaskManager(taskManager);
+        this.port = port;
+        this.executorMode = executorMode;
+        this.threadPoolSize = Runtime.getRuntime().availableProcessors();
+        this.backlog = DEFAULT_BACKLOG;
+        this.stopDelay = DEFAULT_STOP_DELAY;
         gson = new GsonBuilder()
                 .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
                 .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
+                .registerTypeAdapter(Task.class, new TaskTypeAdapter())
+                .registerTypeAdapter(Subtask.class, new SubtaskTypeAdapter())
+                .registerTypeAdapter(Epic.class, new EpicTypeAdapter())
+                .registerTypeAdapter(Operation.class, new OperationTypeAdapter())
                 .serializeNulls()
+                .create();
+        prettyGson = gson.newBuilder()
                 .setPrettyPrinting()
                 .create();
     }
 
+    private void createContext(String path, HttpHandler handler) {
+        server.createContext(path, handler).getFilters().add(clientFilter);
+    }
+
     public void start() throws IOException {
-        server = HttpServer.create(new InetSocketAddress(PORT), 0);
-        server.createContext("/tasks", new TasksHttpHandler(this));
-        server.createContext("/subtasks", new SubtasksHttpHandler(this));
-        server.createContext("/epics", new EpicsHttpHandler(this));
-        server.createContext("/history", new HistoryHttpHandler(this));
-        server.createContext("/prioritized", new PrioritizedHttpHandler(this));
+        server = HttpServer.create(new InetSocketAddress(port), backlog);
+        createContext("/tasks", new TasksHttpHandler(this));
+        createContext("/subtasks", new SubtasksHttpHandler(this));
+        createContext("/epics", new EpicsHttpHandler(this));
+        createContext("/history", new HistoryHttpHandler(this));
+        createContext("/prioritized", new PrioritizedHttpHandler(this));
+        createContext("/batch", new BatchHttpHandler(this));
+        createContext("/metrics", new MetricsHttpHandler(this));
+        createContext("/slots", new SlotsHttpHandler(this));
+        TransferHttpHandler transferHttpHandler = new TransferHttpHandler(this);
+        createContext("/export", transferHttpHandler);
+        createContext("/import", transferHttpHandler);
+        executor = switch (executorMode) {
+            case SINGLE_THREAD -> null;
+            case VIRTUAL_THREADS -> Executors.newVirtualThreadPerTaskExecutor();
+            case THREAD_POOL -> Executors.newFixedThreadPool(threadPoolSize);
+        };
+        server.setExecutor(executor);
         server.start();
     }
 
+    /**
+     * Перестает принимать соединения и ждет завершения начатых запросов не дольше stopDelay. Затем ждет
+     * обработчики, еще выполняющиеся в executor, не дольше EXECUTOR_TERMINATION_TIMEOUT (оставшиеся
+     * прерываются) и закрывает менеджер, если он AutoCloseable, чтобы отложенные изменения были записаны.
+     */
     public void stop() {
-        if (server != null) {
-            server.stop(0);
-            server = null;
+        if (server == null) return;
+        server.stop((int) Math.ceil(stopDelay.toMillis() / 1000.0));
+        server = null;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(EXECUTOR_TERMINATION_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException exception) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+        if (taskManager instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (RuntimeException exception) {
+                throw exception;
+            } catch (Exception exception) {
+                throw new ManagerSaveException(exception);
+            }
         }
     }
 
     public static void main(String[] args) {
-        HttpTaskServer serverInstance = new HttpTaskServer(Managers.getDefault());
+        HttpTaskServer serverInstance = new HttpTaskServer(Managers.getDefault(), PORT, ExecutorMode.VIRTUAL_THREADS);
+        serverInstance.setStopDelay(Duration.ofSeconds(5));
         try {
             serverInstance.start();
 
@@ -0,0 +1,133 @@
+package kanban.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кэш готовых тел ответов списочных эндпоинтов. Запись действительна только для той ревизии менеджера,
+ * при которой она построена: как только приходит запрос с новой ревизией, кэш очищается целиком.
+ * Число записей ограничено, вытесняются давно не запрошенные.
+ */
+public class ResponseCache {
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+    public static final int DEFAULT_MAX_BODY_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Тело ответа в UTF-8 и его сжатая копия, которая строится при первом запросе с gzip.
+     */
+    public static class Entry {
+        private final long revision;
+        private final byte[] body;
+        private final int items;
+        private final String nextCursor;
+        private volatile byte[] gzipBody;
+
+        public Entry(long revision, byte[] body, int items, String nextCursor) {
+            this.revision = revision;
+            this.body = body;
+            this.items = items;
+            this.nextCursor = nextCursor;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public int getItems() {
+            return items;
+        }
+
+        public String getNextCursor() {
+            return nextCursor;
+        }
+
+        public byte[] getGzipBody() {
+            byte[] compressed = gzipBody;
+            if (compressed == null) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4 + 64);
+                try (GZIPOutputStream output = new GZIPOutputStream(bytes)) {
+                    output.write(body);
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+                compressed = bytes.toByteArray();
+                gzipBody = compressed;
+            }
+            return compressed;
+        }
+    }
+
+    private final int maxEntries;
+    private final int maxBodySize;
+    private final LinkedHashMap<String, Entry> entries;
+    private long revision;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    public ResponseCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BODY_SIZE);
+    }
+
+    public ResponseCache(int maxEntries, int maxBodySize) {
+        this.maxEntries = maxEntries;
+        this.maxBodySize = maxBodySize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ResponseCache.this.maxEntries;
+            }
+        };
+        this.revision = -1;
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * Тела больше этого размера не кэшируются, чтобы кэш не держал в памяти целиком огромные списки.
+     */
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    private void moveToRevision(long newRevision) {
+        if (newRevision > revision) {
+            entries.clear();
+            revision = newRevision;
+        }
+    }
+
+    public synchronized Entry get(String key, long currentRevision) {
+        moveToRevision(currentRevision);
+        Entry entry = entries.get(key);
+        if (entry == null || entry.revision != currentRevision) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry;
+    }
+
+    public synchronized void put(String key, Entry entry) {
+        moveToRevision(entry.revision);
+        if (entry.revision == revision) {
+            entries.put(key, entry);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+}
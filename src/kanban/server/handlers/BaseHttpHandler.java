@@ -1,25 +1,292 @@
 package kanban.server.handlers;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
+import kanban.model.Task;
 import kanban.server.HttpTaskServer;
+import kanban.server.ResponseCache;
+import kanban.service.TaskManager;
 
-import java.io.IOException;
+import java.io.*;
+import java.net.URLDecoder;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
 
 public class BaseHttpHandler {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    // ответы с меньшим числом элементов не сжимаются: выигрыш меньше затрат на gzip
+    public static final int GZIP_MIN_ITEMS = 32;
+    private static final String REVISION_ATTRIBUTE = "kanban.revision";
     protected final HttpTaskServer taskServer;
 
+    /**
+     * Параметры списочного запроса: limit, курсор after и проекция fields (null - все поля).
+     */
+    protected static class ListQuery {
+        final String after;
+        final int limit;
+        final Set<String> fields;
+
+        ListQuery(Map<String, String> parameters) {
+            after = parameters.get("after");
+            String limitParameter = parameters.get("limit");
+            limit = limitParameter == null ? Integer.MAX_VALUE : Integer.parseInt(limitParameter);
+            if (limit < 0) {
+                throw new IllegalArgumentException(String.format("Некорректный limit: %s", limit));
+            }
+            String fieldsParameter = parameters.get("fields");
+            fields = fieldsParameter == null ? null : new HashSet<>(Arrays.asList(fieldsParameter.split(",")));
+        }
+
+        Integer getAfterId() {
+            return after == null ? null : Integer.valueOf(after);
+        }
+
+        /**
+         * Запрос без limit, after и fields - весь список целиком: его отдают общим представлением менеджера
+         * без постраничной выборки и копирования.
+         */
+        boolean isWholeList() {
+            return after == null && limit == Integer.MAX_VALUE && fields == null;
+        }
+    }
+
+    /**
+     * Пропускает байты дальше и копирует их в буфер, пока их не больше limit.
+     */
+    private static class CapturingOutputStream extends FilterOutputStream {
+        private final ByteArrayOutputStream captured;
+        private final int limit;
+        private boolean overflowed;
+
+        CapturingOutputStream(OutputStream out, int limit) {
+            super(out);
+            this.captured = new ByteArrayOutputStream();
+            this.limit = limit;
+        }
+
+        private void capture(byte[] bytes, int offset, int length) {
+            if (overflowed) return;
+            if (captured.size() + length > limit) {
+                overflowed = true;
+                captured.reset();
+                return;
+            }
+            captured.write(bytes, offset, length);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            capture(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            capture(bytes, offset, length);
+        }
+
+        byte[] getCaptured() {
+            return overflowed ? null : captured.toByteArray();
+        }
+    }
+
     public BaseHttpHandler(HttpTaskServer taskServer) {
         this.taskServer = taskServer;
     }
 
-    protected void sendText(HttpExchange exchange, String text) throws IOException {
-        byte[] resp = text.getBytes(HttpTaskServer.DEFAULT_CHARSET);
+    /**
+     * Ответ по умолчанию компактный, с параметром pretty=true - отформатированный.
+     */
+    protected Gson getGson(HttpExchange exchange) {
+        return "true".equals(getQueryParameters(exchange).get("pretty"))
+                ? taskServer.getPrettyGson() : taskServer.getGson();
+    }
+
+    private boolean acceptsGzip(HttpExchange exchange) {
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private void addJsonHeaders(HttpExchange exchange, boolean compress) {
         exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
-        exchange.sendResponseHeaders(200, resp.length);
-        exchange.getResponseBody().write(resp);
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+        if (compress) {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+    }
+
+    /**
+     * Отправляет заголовки ответа 200 с chunked-кодированием и возвращает поток тела ответа.
+     * Если клиент принимает gzip и элементов не меньше GZIP_MIN_ITEMS, тело сжимается.
+     */
+    private OutputStream openBody(HttpExchange exchange, int items) throws IOException {
+        boolean compress = items >= GZIP_MIN_ITEMS && acceptsGzip(exchange);
+        addJsonHeaders(exchange, compress);
+        exchange.sendResponseHeaders(200, 0);
+        return compress ? new GZIPOutputStream(exchange.getResponseBody()) : exchange.getResponseBody();
+    }
+
+    /**
+     * Отправляет заголовки ответа 200 с chunked-кодированием и возвращает буферизованный writer тела в UTF-8.
+     * Тело сжимается, если клиент принимает gzip: такие ответы заведомо большие.
+     */
+    protected Writer openTextBody(HttpExchange exchange, String contentType) throws IOException {
+        boolean compress = acceptsGzip(exchange);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+        if (compress) {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream body = compress ? new GZIPOutputStream(exchange.getResponseBody()) : exchange.getResponseBody();
+        return new BufferedWriter(new OutputStreamWriter(body, HttpTaskServer.DEFAULT_CHARSET));
+    }
+
+    private static JsonWriter newJsonWriter(Gson gson, OutputStream body) throws IOException {
+        return gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(body, HttpTaskServer.DEFAULT_CHARSET)));
+    }
+
+    /**
+     * Пишет значение в JSON прямо в тело ответа с chunked-кодированием, не собирая весь ответ в памяти.
+     */
+    protected void sendJson(HttpExchange exchange, Object value) throws IOException {
+        Gson gson = getGson(exchange);
+        int items = value instanceof Collection<?> collection ? collection.size() : 1;
+        try (JsonWriter writer = newJsonWriter(gson, openBody(exchange, items))) {
+            gson.toJson(value, value.getClass(), writer);
+        }
         exchange.close();
     }
 
+    private static boolean entityTagsMatch(String requestTag, String entityTag) {
+        String tag = requestTag.trim();
+        if (tag.equals("*")) return true;
+        if (tag.startsWith("W/")) tag = tag.substring(2);
+        return tag.equals(entityTag.startsWith("W/") ? entityTag.substring(2) : entityTag);
+    }
+
+    /**
+     * Ставит ETag и Last-Modified по ревизии менеджера. Если If-None-Match совпадает с текущим ETag,
+     * отвечает 304 Not Modified, не читая и не сериализуя данные, и возвращает true. Ревизия запоминается
+     * в запросе, и ответ такого эндпоинта попадает в кэш ответов.
+     */
+    protected boolean sendNotModifiedIfCurrent(HttpExchange exchange) throws IOException {
+        TaskManager taskManager = taskServer.getTaskManager();
+        long revision = taskManager.getRevision();
+        exchange.setAttribute(REVISION_ATTRIBUTE, revision);
+        String entityTag = taskServer.getEntityTag(revision);
+        exchange.getResponseHeaders().add("ETag", entityTag);
+        exchange.getResponseHeaders().add("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(taskManager.getLastModified().atZone(ZoneOffset.UTC)));
+
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null) return false;
+        for (String requestTag : ifNoneMatch.split(",")) {
+            if (entityTagsMatch(requestTag, entityTag)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected Map<String, String> getQueryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) return parameters;
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator < 0) continue;
+            parameters.put(URLDecoder.decode(pair.substring(0, separator), HttpTaskServer.DEFAULT_CHARSET),
+                    URLDecoder.decode(pair.substring(separator + 1), HttpTaskServer.DEFAULT_CHARSET));
+        }
+        return parameters;
+    }
+
+    private static String getCacheKey(HttpExchange exchange) {
+        return exchange.getRequestURI().toString();
+    }
+
+    /**
+     * Отправляет готовое тело из кэша ответов, если оно построено для текущей ревизии, и возвращает true.
+     * Вызывается после sendNotModifiedIfCurrent.
+     */
+    protected boolean sendCachedPage(HttpExchange exchange) throws IOException {
+        Long revision = (Long) exchange.getAttribute(REVISION_ATTRIBUTE);
+        if (revision == null) return false;
+        ResponseCache.Entry entry = taskServer.getResponseCache().get(getCacheKey(exchange), revision);
+        if (entry == null) return false;
+
+        if (entry.getNextCursor() != null) {
+            exchange.getResponseHeaders().add(NEXT_CURSOR_HEADER, entry.getNextCursor());
+        }
+        boolean compress = entry.getItems() >= GZIP_MIN_ITEMS && acceptsGzip(exchange);
+        byte[] body = compress ? entry.getGzipBody() : entry.getBody();
+        addJsonHeaders(exchange, compress);
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+        return true;
+    }
+
+    private static <T extends Task> void writePage(Gson gson, JsonWriter writer, ListQuery query, List<T> page)
+            throws IOException {
+        if (query.fields == null) {
+            gson.toJson(page, page.getClass(), writer);
+            return;
+        }
+        writer.beginArray();
+        for (T task : page) {
+            JsonObject projection = new JsonObject();
+            for (Map.Entry<String, JsonElement> field : gson.toJsonTree(task).getAsJsonObject().entrySet()) {
+                if (query.fields.contains(field.getKey())) {
+                    projection.add(field.getKey(), field.getValue());
+                }
+            }
+            gson.toJson(projection, writer);
+        }
+        writer.endArray();
+    }
+
+    /**
+     * Отправляет страницу списка. Если страница заполнена целиком, курсор следующей страницы
+     * передается в заголовке X-Next-Cursor. При заданной проекции от каждой задачи остаются только
+     * перечисленные поля. Если для запроса известна ревизия, несжатое тело по ходу отправки копируется
+     * в кэш ответов (пока не превышен его предельный размер).
+     */
+    protected <T extends Task> void sendPage(HttpExchange exchange, ListQuery query, List<T> page,
+                                             Function<T, String> cursor) throws IOException {
+        String nextCursor = null;
+        if (query.limit != Integer.MAX_VALUE && !page.isEmpty() && page.size() == query.limit) {
+            nextCursor = cursor.apply(page.getLast());
+            exchange.getResponseHeaders().add(NEXT_CURSOR_HEADER, nextCursor);
+        }
+
+        Long revision = (Long) exchange.getAttribute(REVISION_ATTRIBUTE);
+        Gson gson = getGson(exchange);
+        OutputStream body = openBody(exchange, page.size());
+        CapturingOutputStream capture = revision == null ? null
+                : new CapturingOutputStream(body, taskServer.getResponseCache().getMaxBodySize());
+        try (JsonWriter writer = newJsonWriter(gson, capture == null ? body : capture)) {
+            writePage(gson, writer, query, page);
+        }
+        exchange.close();
+
+        if (capture != null && capture.getCaptured() != null) {
+            taskServer.getResponseCache().put(getCacheKey(exchange),
+                    new ResponseCache.Entry(revision, capture.getCaptured(), page.size(), nextCursor));
+        }
+    }
+
     protected void sendSuccess(HttpExchange exchange) throws IOException {
         exchange.sendResponseHeaders(200, -1);
         exchange.close();
@@ -30,6 +297,11 @@ public class BaseHttpHandler {
         exchange.close();
     }
 
+    protected void sendBadRequest(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(400, -1);
+        exchange.close();
+    }
+
     protected void sendNotFound(HttpExchange exchange) throws IOException {
         exchange.sendResponseHeaders(404, -1);
         exchange.close();
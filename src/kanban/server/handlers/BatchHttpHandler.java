@@ -0,0 +1,70 @@
+package kanban.server.handlers;
+
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import kanban.exception.NotFoundException;
+import kanban.exception.TasksIntersectedException;
+import kanban.model.Operation;
+import kanban.model.Task;
+import kanban.server.HttpTaskServer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+public class BatchHttpHandler extends BaseHttpHandler implements HttpHandler {
+    enum Endpoint { POST_BATCH, UNKNOWN }
+
+    public BatchHttpHandler(HttpTaskServer taskServer) {
+        super(taskServer);
+    }
+
+    private Endpoint getEndpoint(String requestPath, String requestMethod) {
+        String[] pathParts = requestPath.split("/");
+
+        if (pathParts[1].equals("batch")) {
+            if (pathParts.length == 2) {
+                if (requestMethod.equals("POST")) return Endpoint.POST_BATCH;
+            }
+        }
+        return Endpoint.UNKNOWN;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        Endpoint endpoint = getEndpoint(exchange.getRequestURI().getPath(), exchange.getRequestMethod());
+
+        switch (endpoint) {
+            case POST_BATCH -> handlePostBatch(exchange);
+            default -> sendNotFound(exchange);
+        }
+    }
+
+    private void handlePostBatch(HttpExchange exchange) throws IOException {
+        List<Task> results;
+        try {
+            String body = new String(exchange.getRequestBody().readAllBytes(), HttpTaskServer.DEFAULT_CHARSET);
+            Operation[] operations = taskServer.getGson().fromJson(body, Operation[].class);
+            if (operations == null || Arrays.asList(operations).contains(null)) {
+                sendBadRequest(exchange);
+                return;
+            }
+            results = taskServer.getTaskManager().applyBatch(Arrays.asList(operations));
+        } catch (NotFoundException exception) {
+            sendNotFound(exchange);
+            return;
+        } catch (TasksIntersectedException exception) {
+            sendHasInteractions(exchange);
+            return;
+        } catch (JsonParseException | IllegalArgumentException | ClassCastException exception) {
+            sendBadRequest(exchange);
+            return;
+        } catch (Exception exception) {
+            sendError(exchange);
+            return;
+        }
+
+        sendJson(exchange, results);
+    }
+}
@@ -0,0 +1,31 @@
+package kanban.server.handlers;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import kanban.service.PartitionedHistoryManager;
+
+import java.io.IOException;
+
+/**
+ * Делает клиента из заголовка X-Client-Id клиентом текущего потока на время обработки запроса,
+ * чтобы просмотры и GET /history шли в его раздел истории. Без заголовка используется общий раздел.
+ */
+public class ClientHttpFilter extends Filter {
+    public static final String CLIENT_HEADER = "X-Client-Id";
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        String client = exchange.getRequestHeaders().getFirst(CLIENT_HEADER);
+        String previous = PartitionedHistoryManager.setCurrentClient(client);
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            PartitionedHistoryManager.setCurrentClient(previous);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Клиент запроса для истории просмотров";
+    }
+}
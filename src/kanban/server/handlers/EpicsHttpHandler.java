@@ -8,6 +8,7 @@ import kanban.model.Epic;
 import kanban.server.HttpTaskServer;
 
 import java.io.IOException;
+import java.util.List;
 
 public class EpicsHttpHandler extends BaseHttpHandler implements HttpHandler {
     enum Endpoint { GET_EPICS, GET_EPIC, POST_EPIC, DELETE_EPIC, GET_EPIC_SUBTASKS, UNKNOWN }
@@ -50,7 +51,23 @@ public class EpicsHttpHandler extends BaseHttpHandler implements HttpHandler {
     }
 
     private void handleGetEpics(HttpExchange exchange) throws IOException {
-        sendText(exchange, taskServer.getGson().toJson(taskServer.getTaskManager().getEpics()));
+        ListQuery query;
+        try {
+            query = new ListQuery(getQueryParameters(exchange));
+        } catch (IllegalArgumentException exception) {
+            sendBadRequest(exchange);
+            return;
+        }
+        if (sendNotModifiedIfCurrent(exchange) || sendCachedPage(exchange)) return;
+        List<Epic> page;
+        try {
+            page = query.isWholeList() ? taskServer.getTaskManager().getEpics()
+                    : taskServer.getTaskManager().getEpics(query.getAfterId(), query.limit);
+        } catch (NumberFormatException exception) {
+            sendBadRequest(exchange);
+            return;
+        }
+        sendPage(exchange, query, page, task -> String.valueOf(task.getId()));
     }
 
     private void handleGetEpic(HttpExchange exchange) throws IOException {
@@ -63,7 +80,7 @@ public class EpicsHttpHandler extends BaseHttpHandler implements HttpHandler {
             return;
         }
 
-        sendText(exchange, taskServer.getGson().toJson(epic));
+        sendJson(exchange, epic);
     }
 
     private void handleGetEpicSubtasks(HttpExchange exchange) throws IOException {
@@ -76,7 +93,7 @@ public class EpicsHttpHandler extends BaseHttpHandler implements HttpHandler {
             return;
         }
 
-        sendText(exchange, taskServer.getGson().toJson(taskServer.getTaskManager().getEpicSubtasks(epic)));
+        sendJson(exchange, taskServer.getTaskManager().getEpicSubtasks(epic));
     }
 
     private void handlePostEpic(HttpExchange exchange) throws IOException {
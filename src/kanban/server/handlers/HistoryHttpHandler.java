@@ -2,9 +2,11 @@ package kanban.server.handlers;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import kanban.model.Task;
 import kanban.server.HttpTaskServer;
 
 import java.io.IOException;
+import java.util.List;
 
 public class HistoryHttpHandler extends BaseHttpHandler implements HttpHandler {
     enum Endpoint { GET_HISTORY, UNKNOWN }
@@ -35,7 +37,21 @@ public class HistoryHttpHandler extends BaseHttpHandler implements HttpHandler {
     }
 
     private void handleGetHistory(HttpExchange exchange) throws IOException {
-        sendText(exchange, taskServer.getGson().toJson(taskServer.getTaskManager().getHistory()));
+        ListQuery query;
+        try {
+            query = new ListQuery(getQueryParameters(exchange));
+        } catch (IllegalArgumentException exception) {
+            sendBadRequest(exchange);
+            return;
+        }
+        List<Task> page;
+        try {
+            page = taskServer.getTaskManager().getHistory(query.getAfterId(), query.limit);
+        } catch (NumberFormatException exception) {
+            sendBadRequest(exchange);
+            return;
+        }
+        sendPage(exchange, query, page, task -> String.valueOf(task.getId()));
     }
 }
 
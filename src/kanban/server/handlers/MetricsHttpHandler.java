@@ -0,0 +1,51 @@
+package kanban.server.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import kanban.server.HttpTaskServer;
+import kanban.server.ResponseCache;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class MetricsHttpHandler extends BaseHttpHandler implements HttpHandler {
+    enum Endpoint { GET_METRICS, UNKNOWN }
+
+    public MetricsHttpHandler(HttpTaskServer taskServer) {
+        super(taskServer);
+    }
+
+    private Endpoint getEndpoint(String requestPath, String requestMethod) {
+        String[] pathParts = requestPath.split("/");
+
+        if (pathParts[1].equals("metrics")) {
+            if (pathParts.length == 2) {
+                if (requestMethod.equals("GET")) return Endpoint.GET_METRICS;
+            }
+        }
+        return Endpoint.UNKNOWN;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        Endpoint endpoint = getEndpoint(exchange.getRequestURI().getPath(), exchange.getRequestMethod());
+
+        switch (endpoint) {
+            case GET_METRICS -> handleGetMetrics(exchange);
+            default -> sendNotFound(exchange);
+        }
+    }
+
+    private void handleGetMetrics(HttpExchange exchange) throws IOException {
+        ResponseCache responseCache = taskServer.getResponseCache();
+        Map<String, Object> cacheMetrics = new LinkedHashMap<>();
+        cacheMetrics.put("hits", responseCache.getHits());
+        cacheMetrics.put("misses", responseCache.getMisses());
+        cacheMetrics.put("entries", responseCache.size());
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("responseCache", cacheMetrics);
+        sendJson(exchange, metrics);
+    }
+}
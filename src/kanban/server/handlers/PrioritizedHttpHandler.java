@@ -2,9 +2,16 @@ package kanban.server.handlers;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import kanban.model.Task;
 import kanban.server.HttpTaskServer;
+import kanban.server.typeadapters.LocalDateTimeTypeAdapter;
+import kanban.service.ScheduleIndex;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
 
 public class PrioritizedHttpHandler extends BaseHttpHandler implements HttpHandler {
     enum Endpoint { GET_PRIORITIZED, UNKNOWN }
@@ -35,6 +42,32 @@ public class PrioritizedHttpHandler extends BaseHttpHandler implements HttpHandl
     }
 
     private void handleGetPrioritized(HttpExchange exchange) throws IOException {
-        sendText(exchange, taskServer.getGson().toJson(taskServer.getTaskManager().getPrioritizedTasks()));
+        ListQuery query;
+        try {
+            query = new ListQuery(getQueryParameters(exchange));
+        } catch (IllegalArgumentException exception) {
+            sendBadRequest(exchange);
+            return;
+        }
+        if (sendNotModifiedIfCurrent(exchange) || sendCachedPage(exchange)) return;
+        List<Task> page;
+        try {
+            Map<String, String> parameters = getQueryParameters(exchange);
+            LocalDateTime from = parseDateTime(parameters.get("from"));
+            LocalDateTime to = parseDateTime(parameters.get("to"));
+            // курсор - полный ключ расписания (начало, тип, id), поэтому задачи с тем же началом не пропускаются
+            ScheduleIndex.Key after = query.after == null ? null : ScheduleIndex.Key.fromCursor(query.after);
+            page = query.isWholeList() && from == null && to == null
+                    ? taskServer.getTaskManager().getPrioritizedTasks()
+                    : taskServer.getTaskManager().getPrioritizedTasks(from, to, after, query.limit);
+        } catch (DateTimeParseException | IllegalArgumentException exception) {
+            sendBadRequest(exchange);
+            return;
+        }
+        sendPage(exchange, query, page, task -> ScheduleIndex.Key.of(task).toCursor());
+    }
+
+    private static LocalDateTime parseDateTime(String value) {
+        return value == null ? null : LocalDateTimeTypeAdapter.parse(value);
     }
 }
@@ -0,0 +1,75 @@
+package kanban.server.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import kanban.model.TimeSlot;
+import kanban.server.HttpTaskServer;
+import kanban.server.typeadapters.LocalDateTimeTypeAdapter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GET /slots?duration=&from=&to=&limit= - свободные промежутки расписания, куда помещается задача длительностью
+ * duration минут. from по умолчанию - текущее время, to не ограничено, limit по умолчанию DEFAULT_LIMIT.
+ */
+public class SlotsHttpHandler extends BaseHttpHandler implements HttpHandler {
+    public static final int DEFAULT_LIMIT = 10;
+
+    enum Endpoint { GET_SLOTS, UNKNOWN }
+
+    public SlotsHttpHandler(HttpTaskServer taskServer) {
+        super(taskServer);
+    }
+
+    private Endpoint getEndpoint(String requestPath, String requestMethod) {
+        String[] pathParts = requestPath.split("/");
+
+        if (pathParts[1].equals("slots")) {
+            if (pathParts.length == 2) {
+                if (requestMethod.equals("GET")) return Endpoint.GET_SLOTS;
+            }
+        }
+        return Endpoint.UNKNOWN;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        Endpoint endpoint = getEndpoint(exchange.getRequestURI().getPath(), exchange.getRequestMethod());
+
+        switch (endpoint) {
+            case GET_SLOTS -> handleGetSlots(exchange);
+            default -> sendNotFound(exchange);
+        }
+    }
+
+    private void handleGetSlots(HttpExchange exchange) throws IOException {
+        List<TimeSlot> slots;
+        try {
+            Map<String, String> parameters = getQueryParameters(exchange);
+            String durationParameter = parameters.get("duration");
+            if (durationParameter == null) {
+                sendBadRequest(exchange);
+                return;
+            }
+            Duration duration = Duration.ofMinutes(Long.parseLong(durationParameter));
+            String fromParameter = parameters.get("from");
+            String toParameter = parameters.get("to");
+            String limitParameter = parameters.get("limit");
+            LocalDateTime from = fromParameter == null ? LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES)
+                    : LocalDateTimeTypeAdapter.parse(fromParameter);
+            LocalDateTime to = toParameter == null ? null : LocalDateTimeTypeAdapter.parse(toParameter);
+            int limit = limitParameter == null ? DEFAULT_LIMIT : Integer.parseInt(limitParameter);
+            slots = taskServer.getTaskManager().findFreeSlots(duration, from, to, limit);
+        } catch (IllegalArgumentException | DateTimeParseException exception) {
+            sendBadRequest(exchange);
+            return;
+        }
+        sendJson(exchange, slots);
+    }
+}
@@ -8,6 +8,7 @@ import kanban.model.Subtask;
 import kanban.server.HttpTaskServer;
 
 import java.io.IOException;
+import java.util.List;
 
 public class SubtasksHttpHandler extends BaseHttpHandler implements HttpHandler {
     enum Endpoint { GET_SUBTASKS, GET_SUBTASK, POST_SUBTASK, DELETE_SUBTASK, UNKNOWN }
@@ -46,7 +47,23 @@ public class SubtasksHttpHandler extends BaseHttpHandler implements HttpHandler
     }
 
     private void handleGetSubtasks(HttpExchange exchange) throws IOException {
-        sendText(exchange, taskServer.getGson().toJson(taskServer.getTaskManager().getSubtasks()));
+        ListQuery query;
+        try {
+            query = new ListQuery(getQueryParameters(exchange));
+        } catch (IllegalArgumentException exception) {
+            sendBadRequest(exchange);
+            return;
+        }
+        if (sendNotModifiedIfCurrent(exchange) || sendCachedPage(exchange)) return;
+        List<Subtask> page;
+        try {
+            page = query.isWholeList() ? taskServer.getTaskManager().getSubtasks()
+                    : taskServer.getTaskManager().getSubtasks(query.getAfterId(), query.limit);
+        } catch (NumberFormatException exception) {
+            sendBadRequest(exchange);
+            return;
+        }
+        sendPage(exchange, query, page, task -> String.valueOf(task.getId()));
     }
 
     private void handleGetSubtask(HttpExchange exchange) throws IOException {
@@ -59,7 +76,7 @@ public class SubtasksHttpHandler extends BaseHttpHandler implements HttpHandler
             return;
         }
 
-        sendText(exchange, taskServer.getGson().toJson(subtask));
+        sendJson(exchange, subtask);
     }
 
     private void handlePostSubtask(HttpExchange exchange) throws IOException {
@@ -8,6 +8,7 @@ import kanban.model.Task;
 import kanban.server.HttpTaskServer;
 
 import java.io.IOException;
+import java.util.List;
 
 public class TasksHttpHandler extends BaseHttpHandler implements HttpHandler {
     enum Endpoint { GET_TASKS, GET_TASK, POST_TASK, DELETE_TASK, UNKNOWN }
@@ -44,7 +45,23 @@ public class TasksHttpHandler extends BaseHttpHandler implements HttpHandler {
     }
 
     private void handleGetTasks(HttpExchange exchange) throws IOException {
-        sendText(exchange, taskServer.getGson().toJson(taskServer.getTaskManager().getTasks()));
+        ListQuery query;
+        try {
+            query = new ListQuery(getQueryParameters(exchange));
+        } catch (IllegalArgumentException exception) {
+            sendBadRequest(exchange);
+            return;
+        }
+        if (sendNotModifiedIfCurrent(exchange) || sendCachedPage(exchange)) return;
+        List<Task> page;
+        try {
+            page = query.isWholeList() ? taskServer.getTaskManager().getTasks()
+                    : taskServer.getTaskManager().getTasks(query.getAfterId(), query.limit);
+        } catch (NumberFormatException exception) {
+            sendBadRequest(exchange);
+            return;
+        }
+        sendPage(exchange, query, page, task -> String.valueOf(task.getId()));
     }
 
     private void handleGetTask(HttpExchange exchange) throws IOException {
@@ -57,7 +74,7 @@ public class TasksHttpHandler extends BaseHttpHandler implements HttpHandler {
             return;
         }
 
-        sendText(exchange, taskServer.getGson().toJson(task));
+        sendJson(exchange, task);
     }
 
     private void handlePostTask(HttpExchange exchange) throws IOException {
@@ -0,0 +1,215 @@
+package kanban.server.handlers;
+
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import kanban.exception.NotFoundException;
+import kanban.exception.TasksIntersectedException;
+import kanban.model.Operation;
+import kanban.model.Task;
+import kanban.server.HttpTaskServer;
+import kanban.service.TaskManager;
+import kanban.service.TaskParser;
+
+import java.io.*;
+import java.time.DateTimeException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Выгрузка и загрузка всей доски: GET /export и POST /import. Формат задается параметром format:
+ * csv (по умолчанию, как в файле FileBackedTaskManager, с тем же заголовком) или ndjson (по операции
+ * добавления в JSON на строку, как в POST /batch). Обе стороны работают построчно.
+ * <p>
+ * Для выгрузки под одной короткой блокировкой чтения (readConsistently) берутся общие неизменяемые списки
+ * задач, эпиков и подзадач, поэтому они относятся к одному состоянию доски, а запись в сокет идет уже без
+ * блокировки. Импорт читает тело запроса вне блокировки менеджера. Если импорт прервался ошибкой, заголовок
+ * X-Imported-Count ответа сообщает, сколько задач из уже примененных пакетов осталось добавленными.
+ */
+public class TransferHttpHandler extends BaseHttpHandler implements HttpHandler {
+    public static final int DEFAULT_IMPORT_BATCH_SIZE = 1000;
+    public static final String IMPORTED_COUNT_HEADER = "X-Imported-Count";
+
+    enum Endpoint { GET_EXPORT, POST_IMPORT, UNKNOWN }
+
+    enum Format {
+        CSV("text/csv;charset=utf-8"),
+        NDJSON("application/x-ndjson;charset=utf-8");
+
+        final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+    }
+
+    public TransferHttpHandler(HttpTaskServer taskServer) {
+        super(taskServer);
+    }
+
+    /**
+     * Задачи из тела запроса, разбираемые по одной строке при обращении. Пустые строки пропускаются,
+     * ошибка разбора сообщает номер строки.
+     */
+    private static class LineIterator implements Iterator<Task> {
+        private final BufferedReader reader;
+        private final Function<String, Task> parser;
+        private int lineNumber;
+        private String nextLine;
+
+        LineIterator(BufferedReader reader, int lineNumber, Function<String, Task> parser) {
+            this.reader = reader;
+            this.lineNumber = lineNumber;
+            this.parser = parser;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (nextLine == null) {
+                    String line = reader.readLine();
+                    if (line == null) return false;
+                    lineNumber++;
+                    if (!line.isBlank()) nextLine = line;
+                }
+                return true;
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        @Override
+        public Task next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            String line = nextLine;
+            nextLine = null;
+            try {
+                return parser.apply(line);
+            } catch (JsonParseException | DateTimeException | IllegalStateException | IndexOutOfBoundsException
+                     | IllegalArgumentException exception) {
+                throw new IllegalArgumentException(String.format("Строка %s: %s", lineNumber,
+                        exception.getMessage()), exception);
+            }
+        }
+    }
+
+    private Endpoint getEndpoint(String requestPath, String requestMethod) {
+        String[] pathParts = requestPath.split("/");
+
+        if (pathParts.length == 2) {
+            if (pathParts[1].equals("export") && requestMethod.equals("GET")) return Endpoint.GET_EXPORT;
+            if (pathParts[1].equals("import") && requestMethod.equals("POST")) return Endpoint.POST_IMPORT;
+        }
+        return Endpoint.UNKNOWN;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        Endpoint endpoint = getEndpoint(exchange.getRequestURI().getPath(), exchange.getRequestMethod());
+
+        switch (endpoint) {
+            case GET_EXPORT -> handleGetExport(exchange);
+            case POST_IMPORT -> handlePostImport(exchange);
+            default -> sendNotFound(exchange);
+        }
+    }
+
+    private Format getFormat(Map<String, String> parameters) {
+        String format = parameters.get("format");
+        return format == null ? Format.CSV : Format.valueOf(format.toUpperCase());
+    }
+
+    private String formatTask(Format format, Task task) {
+        return switch (format) {
+            case CSV -> TaskParser.taskToString(task);
+            case NDJSON -> taskServer.getGson().toJson(new Operation(Operation.Type.ADD, task));
+        };
+    }
+
+    private Task parseTask(Format format, String line) {
+        if (format == Format.CSV) return TaskParser.taskFromString(line);
+        Operation operation = taskServer.getGson().fromJson(line, Operation.class);
+        if (operation == null || operation.getType() != Operation.Type.ADD || operation.getTask() == null) {
+            throw new IllegalArgumentException("Ожидается операция добавления задачи.");
+        }
+        return operation.getTask();
+    }
+
+    private void handleGetExport(HttpExchange exchange) throws IOException {
+        Format format;
+        try {
+            format = getFormat(getQueryParameters(exchange));
+        } catch (IllegalArgumentException exception) {
+            sendBadRequest(exchange);
+            return;
+        }
+
+        TaskManager taskManager = taskServer.getTaskManager();
+        // сначала задачи, затем эпики, затем подзадачи, поэтому эпик всегда идет раньше своих подзадач
+        List<List<? extends Task>> board = taskManager.readConsistently(() -> List.of(taskManager.getTasks(),
+                taskManager.getEpics(), taskManager.getSubtasks()));
+        try (Writer writer = openTextBody(exchange, format.contentType)) {
+            if (format == Format.CSV) {
+                writer.write(TaskParser.getHeader());
+                writer.write('\n');
+            }
+            for (List<? extends Task> tasks : board) {
+                for (Task task : tasks) {
+                    writer.write(formatTask(format, task));
+                    writer.write('\n');
+                }
+            }
+        }
+        exchange.close();
+    }
+
+    private void handlePostImport(HttpExchange exchange) throws IOException {
+        int imported;
+        int[] committed = new int[1];
+        try {
+            Map<String, String> parameters = getQueryParameters(exchange);
+            Format format = getFormat(parameters);
+            String batchSize = parameters.get("batchSize");
+            BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(),
+                    HttpTaskServer.DEFAULT_CHARSET));
+            int lineNumber = 0;
+            if (format == Format.CSV) {
+                String header = reader.readLine();
+                lineNumber++;
+                if (header == null || !header.equals(TaskParser.getHeader())) {
+                    sendBadRequest(exchange);
+                    return;
+                }
+            }
+            imported = taskServer.getTaskManager().importTasks(
+                    new LineIterator(reader, lineNumber, line -> parseTask(format, line)),
+                    batchSize == null ? DEFAULT_IMPORT_BATCH_SIZE : Integer.parseInt(batchSize),
+                    count -> committed[0] = count);
+        } catch (NotFoundException exception) {
+            setImportedCount(exchange, committed[0]);
+            sendNotFound(exchange);
+            return;
+        } catch (TasksIntersectedException exception) {
+            setImportedCount(exchange, committed[0]);
+            sendHasInteractions(exchange);
+            return;
+        } catch (IllegalArgumentException | ClassCastException exception) {
+            setImportedCount(exchange, committed[0]);
+            sendBadRequest(exchange);
+            return;
+        } catch (Exception exception) {
+            setImportedCount(exchange, committed[0]);
+            sendError(exchange);
+            return;
+        }
+
+        setImportedCount(exchange, imported);
+        Map<String, Integer> result = new LinkedHashMap<>();
+        result.put("imported", imported);
+        sendJson(exchange, result);
+    }
+
+    private static void setImportedCount(HttpExchange exchange, int imported) {
+        exchange.getResponseHeaders().set(IMPORTED_COUNT_HEADER, String.valueOf(imported));
+    }
+}
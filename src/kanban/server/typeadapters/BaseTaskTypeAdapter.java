@@ -0,0 +1,110 @@
+package kanban.server.typeadapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import kanban.model.Task;
+import kanban.model.TaskStatus;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+/**
+ * Общая часть адаптеров задач: пишет и читает поля без рефлексии, в том же виде, что и Gson по умолчанию.
+ */
+abstract class BaseTaskTypeAdapter<T extends Task> extends TypeAdapter<T> {
+
+    /**
+     * Прочитанные поля JSON-объекта. Значения по умолчанию совпадают с конструктором Task().
+     */
+    static class TaskFields {
+        Integer id;
+        TaskStatus status = TaskStatus.NEW;
+        String name = "";
+        String description = "";
+        LocalDateTime startTime;
+        Duration duration;
+        Integer epic;
+        ArrayList<Integer> subtasks;
+        LocalDateTime endTime;
+
+        void applyTo(Task task) {
+            if (id != null) task.setId(id);
+            task.setStatus(status);
+            task.setName(name);
+            task.setDescription(description);
+            task.setStartTime(startTime);
+            task.setDuration(duration);
+        }
+    }
+
+    protected static void writeTaskFields(JsonWriter jsonWriter, Task task) throws IOException {
+        jsonWriter.name("id");
+        if (task.getId() == null) {
+            jsonWriter.nullValue();
+        } else {
+            jsonWriter.value(task.getId());
+        }
+        jsonWriter.name("status");
+        jsonWriter.value(task.getStatus() == null ? null : task.getStatus().name());
+        jsonWriter.name("name").value(task.getName());
+        jsonWriter.name("description").value(task.getDescription());
+        jsonWriter.name("startTime");
+        LocalDateTimeTypeAdapter.writeValue(jsonWriter, task.getStartTime());
+        jsonWriter.name("duration");
+        if (task.getDuration() == null) {
+            jsonWriter.nullValue();
+        } else {
+            jsonWriter.value(task.getDuration().toMinutes());
+        }
+    }
+
+    private static boolean nextIsNull(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    private static TaskStatus readStatus(String value) {
+        for (TaskStatus status : TaskStatus.values()) {
+            if (status.name().equals(value)) return status;
+        }
+        return null;
+    }
+
+    protected static TaskFields readTaskFields(JsonReader jsonReader) throws IOException {
+        TaskFields fields = new TaskFields();
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String name = jsonReader.nextName();
+            switch (name) {
+                case "id" -> fields.id = nextIsNull(jsonReader) ? null : jsonReader.nextInt();
+                case "status" -> fields.status = nextIsNull(jsonReader) ? null : readStatus(jsonReader.nextString());
+                case "name" -> fields.name = nextIsNull(jsonReader) ? null : jsonReader.nextString();
+                case "description" -> fields.description = nextIsNull(jsonReader) ? null : jsonReader.nextString();
+                case "startTime" -> fields.startTime = LocalDateTimeTypeAdapter.readValue(jsonReader);
+                case "duration" -> fields.duration = nextIsNull(jsonReader) ? null
+                        : Duration.ofMinutes(jsonReader.nextLong());
+                case "epic" -> fields.epic = nextIsNull(jsonReader) ? null : jsonReader.nextInt();
+                case "endTime" -> fields.endTime = LocalDateTimeTypeAdapter.readValue(jsonReader);
+                case "subtasks" -> {
+                    if (nextIsNull(jsonReader)) break;
+                    fields.subtasks = new ArrayList<>();
+                    jsonReader.beginArray();
+                    while (jsonReader.hasNext()) {
+                        fields.subtasks.add(jsonReader.nextInt());
+                    }
+                    jsonReader.endArray();
+                }
+                default -> jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        return fields;
+    }
+}
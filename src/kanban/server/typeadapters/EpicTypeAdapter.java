@@ -0,0 +1,43 @@
+package kanban.server.typeadapters;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import kanban.model.Epic;
+
+import java.io.IOException;
+
+public final class EpicTypeAdapter extends BaseTaskTypeAdapter<Epic> {
+    @Override
+    public void write(final JsonWriter jsonWriter, final Epic epic) throws IOException {
+        if (epic == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+        jsonWriter.beginObject();
+        jsonWriter.name("subtasks");
+        jsonWriter.beginArray();
+        for (Integer subtaskId : epic.getSubtasks()) {
+            jsonWriter.value(subtaskId);
+        }
+        jsonWriter.endArray();
+        jsonWriter.name("endTime");
+        LocalDateTimeTypeAdapter.writeValue(jsonWriter, epic.getEndTime());
+        writeTaskFields(jsonWriter, epic);
+        jsonWriter.endObject();
+    }
+
+    @Override
+    public Epic read(final JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        TaskFields fields = readTaskFields(jsonReader);
+        Epic epic = new Epic();
+        fields.applyTo(epic);
+        epic.setSubtasks(fields.subtasks);
+        epic.setEndTime(fields.endTime);
+        return epic;
+    }
+}
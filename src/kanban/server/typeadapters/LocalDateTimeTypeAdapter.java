@@ -7,26 +7,87 @@ import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 
 public final class LocalDateTimeTypeAdapter extends TypeAdapter<LocalDateTime> {
     public static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yy HH:mm");
+    private static final int TEXT_LENGTH = "dd.MM.yy HH:mm".length();
+    private static final int BASE_YEAR = 2000;
 
-    @Override
-    public void write(final JsonWriter jsonWriter, final LocalDateTime localDateTime) throws IOException {
+    private static void appendTwoDigits(char[] chars, int position, int value) {
+        chars[position] = (char) ('0' + value / 10);
+        chars[position + 1] = (char) ('0' + value % 10);
+    }
+
+    private static int parseTwoDigits(String text, int position) {
+        char high = text.charAt(position);
+        char low = text.charAt(position + 1);
+        if (high < '0' || high > '9' || low < '0' || low > '9') return -1;
+        return (high - '0') * 10 + (low - '0');
+    }
+
+    /**
+     * Форматирует дату по шаблону dd.MM.yy HH:mm без DateTimeFormatter. Годы вне 2000-2099
+     * отдаются форматтеру, чтобы результат полностью совпадал с ним.
+     */
+    public static String format(LocalDateTime localDateTime) {
+        int year = localDateTime.getYear();
+        if (year < BASE_YEAR || year >= BASE_YEAR + 100) {
+            return localDateTime.format(DATE_TIME_FORMATTER);
+        }
+        char[] chars = {0, 0, '.', 0, 0, '.', 0, 0, ' ', 0, 0, ':', 0, 0};
+        appendTwoDigits(chars, 0, localDateTime.getDayOfMonth());
+        appendTwoDigits(chars, 3, localDateTime.getMonthValue());
+        appendTwoDigits(chars, 6, year - BASE_YEAR);
+        appendTwoDigits(chars, 9, localDateTime.getHour());
+        appendTwoDigits(chars, 12, localDateTime.getMinute());
+        return new String(chars);
+    }
+
+    /**
+     * Разбирает дату по шаблону dd.MM.yy HH:mm. Строки не в этом виде отдаются форматтеру,
+     * который и сообщает об ошибке через DateTimeParseException.
+     */
+    public static LocalDateTime parse(String text) {
+        if (text.length() == TEXT_LENGTH && text.charAt(2) == '.' && text.charAt(5) == '.'
+                && text.charAt(8) == ' ' && text.charAt(11) == ':') {
+            int day = parseTwoDigits(text, 0);
+            int month = parseTwoDigits(text, 3);
+            int year = parseTwoDigits(text, 6);
+            int hour = parseTwoDigits(text, 9);
+            int minute = parseTwoDigits(text, 12);
+            if (day > 0 && month > 0 && month <= 12 && year >= 0 && hour >= 0 && hour < 24
+                    && minute >= 0 && minute < 60 && day <= YearMonth.of(BASE_YEAR + year, month).lengthOfMonth()) {
+                return LocalDateTime.of(BASE_YEAR + year, month, day, hour, minute);
+            }
+        }
+        return LocalDateTime.parse(text, DATE_TIME_FORMATTER);
+    }
+
+    static void writeValue(JsonWriter jsonWriter, LocalDateTime localDateTime) throws IOException {
         if (localDateTime == null) {
             jsonWriter.nullValue();
         } else {
-            jsonWriter.value(localDateTime.format(DATE_TIME_FORMATTER));
+            jsonWriter.value(format(localDateTime));
         }
     }
 
-    @Override
-    public LocalDateTime read(final JsonReader jsonReader) throws IOException {
+    static LocalDateTime readValue(JsonReader jsonReader) throws IOException {
         if (jsonReader.peek() == JsonToken.NULL) {
             jsonReader.nextNull();
             return null;
         }
-        return LocalDateTime.parse(jsonReader.nextString(), DATE_TIME_FORMATTER);
+        return parse(jsonReader.nextString());
+    }
+
+    @Override
+    public void write(final JsonWriter jsonWriter, final LocalDateTime localDateTime) throws IOException {
+        writeValue(jsonWriter, localDateTime);
+    }
+
+    @Override
+    public LocalDateTime read(final JsonReader jsonReader) throws IOException {
+        return readValue(jsonReader);
     }
-}
\ No newline at end of file
+}
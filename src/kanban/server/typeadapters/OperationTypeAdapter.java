@@ -0,0 +1,83 @@
+package kanban.server.typeadapters;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import kanban.model.*;
+
+import java.io.IOException;
+
+/**
+ * Операция пакета в JSON: {"type": "ADD", "taskType": "SUBTASK", "task": {...}} для добавления и обновления,
+ * {"type": "DELETE", "taskType": "TASK", "id": 5} для удаления. Класс задачи выбирается по taskType.
+ */
+public final class OperationTypeAdapter extends TypeAdapter<Operation> {
+    private final TaskTypeAdapter taskTypeAdapter = new TaskTypeAdapter();
+    private final SubtaskTypeAdapter subtaskTypeAdapter = new SubtaskTypeAdapter();
+    private final EpicTypeAdapter epicTypeAdapter = new EpicTypeAdapter();
+
+    @Override
+    public void write(final JsonWriter jsonWriter, final Operation operation) throws IOException {
+        if (operation == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+        jsonWriter.beginObject();
+        jsonWriter.name("type").value(operation.getType() == null ? null : operation.getType().name());
+        jsonWriter.name("taskType").value(operation.getTaskType() == null ? null : operation.getTaskType().name());
+        jsonWriter.name("id");
+        if (operation.getId() == null) {
+            jsonWriter.nullValue();
+        } else {
+            jsonWriter.value(operation.getId());
+        }
+        jsonWriter.name("task");
+        Task task = operation.getTask();
+        if (task == null) {
+            jsonWriter.nullValue();
+        } else {
+            switch (task.getTaskType()) {
+                case TASK -> taskTypeAdapter.write(jsonWriter, task);
+                case SUBTASK -> subtaskTypeAdapter.write(jsonWriter, (Subtask) task);
+                case EPIC -> epicTypeAdapter.write(jsonWriter, (Epic) task);
+            }
+        }
+        jsonWriter.endObject();
+    }
+
+    private static String getString(JsonObject object, String name) {
+        JsonElement element = object.get(name);
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+
+    @Override
+    public Operation read(final JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        JsonObject object = JsonParser.parseReader(jsonReader).getAsJsonObject();
+        try {
+            Operation.Type type = Operation.Type.valueOf(getString(object, "type"));
+            TaskTypes taskType = TaskTypes.valueOf(getString(object, "taskType"));
+            JsonElement taskElement = object.get("task");
+            if (type == Operation.Type.DELETE || taskElement == null || taskElement.isJsonNull()) {
+                String id = getString(object, "id");
+                return new Operation(type, taskType, id == null ? null : Integer.valueOf(id));
+            }
+            Task task = switch (taskType) {
+                case TASK -> taskTypeAdapter.fromJsonTree(taskElement);
+                case SUBTASK -> subtaskTypeAdapter.fromJsonTree(taskElement);
+                case EPIC -> epicTypeAdapter.fromJsonTree(taskElement);
+            };
+            return new Operation(type, task);
+        } catch (NullPointerException | IllegalArgumentException exception) {
+            throw new JsonParseException("Некорректная операция пакета: " + object, exception);
+        }
+    }
+}
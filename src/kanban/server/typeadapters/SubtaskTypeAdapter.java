@@ -0,0 +1,39 @@
+package kanban.server.typeadapters;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import kanban.model.Subtask;
+
+import java.io.IOException;
+
+public final class SubtaskTypeAdapter extends BaseTaskTypeAdapter<Subtask> {
+    @Override
+    public void write(final JsonWriter jsonWriter, final Subtask subtask) throws IOException {
+        if (subtask == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+        jsonWriter.beginObject();
+        jsonWriter.name("epic");
+        if (subtask.epic == null) {
+            jsonWriter.nullValue();
+        } else {
+            jsonWriter.value(subtask.epic);
+        }
+        writeTaskFields(jsonWriter, subtask);
+        jsonWriter.endObject();
+    }
+
+    @Override
+    public Subtask read(final JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        TaskFields fields = readTaskFields(jsonReader);
+        Subtask subtask = new Subtask(fields.epic);
+        fields.applyTo(subtask);
+        return subtask;
+    }
+}
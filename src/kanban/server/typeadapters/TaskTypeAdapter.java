@@ -0,0 +1,33 @@
+package kanban.server.typeadapters;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import kanban.model.Task;
+
+import java.io.IOException;
+
+public final class TaskTypeAdapter extends BaseTaskTypeAdapter<Task> {
+    @Override
+    public void write(final JsonWriter jsonWriter, final Task task) throws IOException {
+        if (task == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+        jsonWriter.beginObject();
+        writeTaskFields(jsonWriter, task);
+        jsonWriter.endObject();
+    }
+
+    @Override
+    public Task read(final JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        TaskFields fields = readTaskFields(jsonReader);
+        Task task = new Task();
+        fields.applyTo(task);
+        return task;
+    }
+}
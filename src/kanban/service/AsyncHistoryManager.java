@@ -0,0 +1,252 @@
+package kanban.service;
+
+import kanban.model.Task;
+import kanban.model.TaskValue;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * История, которая записывает просмотры не в потоке чтения. В режиме ASYNC add и remove только кладут
+ * событие в кольцевой буфер (много производителей, один потребитель, без блокировок), а отдельный поток
+ * применяет события к вложенной истории в порядке поступления. getHistory сначала дожидается применения
+ * всех событий, положенных до вызова, поэтому поток, который прочитал задачу, сразу видит ее в истории.
+ * В режиме SYNC события применяются сразу, как в обычной истории.
+ * <p>
+ * Просмотр запоминается вместе с клиентом потока (см. PartitionedHistoryManager), чтобы поток записи
+ * добавил его в историю того же клиента.
+ */
+public class AsyncHistoryManager implements HistoryManager {
+    /**
+     * ASYNC - просмотры записываются фоновым потоком, SYNC - в вызывающем потоке.
+     */
+    public enum Recording { ASYNC, SYNC }
+
+    public static final int DEFAULT_BUFFER_CAPACITY = 1 << 14;
+    // поток записи завершается, если столько времени не было событий, и запускается заново при следующем
+    private static final long IDLE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final HistoryManager history;
+    private final Recording recording;
+    private final boolean lockHistory;
+
+    private final int mask;
+    // sequences[i] == позиция + 1: в ячейке опубликовано событие; == позиция: ячейка свободна для записи
+    private final AtomicLongArray sequences;
+    private final TaskValue[] values;
+    private final int[] ids;
+    private final String[] clients;
+    private final AtomicLong tail;
+    private long head;
+    private volatile long applied;
+
+    private final AtomicBoolean recorderRunning;
+    private volatile Thread recorder;
+    private volatile boolean recorderParked;
+    private final Object appliedMonitor;
+
+    public AsyncHistoryManager(HistoryManager history) {
+        this(history, Recording.ASYNC, DEFAULT_BUFFER_CAPACITY);
+    }
+
+    public AsyncHistoryManager(HistoryManager history, Recording recording) {
+        this(history, recording, DEFAULT_BUFFER_CAPACITY);
+    }
+
+    public AsyncHistoryManager(HistoryManager history, Recording recording, int bufferCapacity) {
+        if (bufferCapacity < 2 || Integer.bitCount(bufferCapacity) != 1) {
+            throw new IllegalArgumentException(
+                    String.format("Размер буфера истории должен быть степенью двойки: %s", bufferCapacity));
+        }
+        this.history = history;
+        this.recording = recording;
+        this.lockHistory = !history.isThreadSafe();
+        this.mask = bufferCapacity - 1;
+        this.sequences = new AtomicLongArray(bufferCapacity);
+        for (int i = 0; i < bufferCapacity; i++) {
+            sequences.set(i, i);
+        }
+        this.values = new TaskValue[bufferCapacity];
+        this.ids = new int[bufferCapacity];
+        this.clients = new String[bufferCapacity];
+        this.tail = new AtomicLong();
+        this.recorderRunning = new AtomicBoolean();
+        this.appliedMonitor = new Object();
+    }
+
+    public Recording getRecording() {
+        return recording;
+    }
+
+    @Override
+    public void setTaskResolver(IntFunction<? extends Task> taskResolver) {
+        history.setTaskResolver(taskResolver);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) return;
+        add(TaskValue.of(task));
+    }
+
+    @Override
+    public void add(TaskValue value) {
+        if (value == null) return;
+        if (recording == Recording.SYNC) {
+            apply(value, value.id(), PartitionedHistoryManager.getCurrentClient());
+        } else {
+            publish(value, value.id(), PartitionedHistoryManager.getCurrentClient());
+        }
+    }
+
+    /**
+     * Удаление идет через тот же буфер, чтобы еще не примененный просмотр не вернул удаленную задачу в историю.
+     */
+    @Override
+    public void remove(int id) {
+        if (recording == Recording.SYNC) {
+            apply(null, id, null);
+        } else {
+            publish(null, id, null);
+        }
+    }
+
+    @Override
+    public ArrayList<Task> getHistory() {
+        if (recording == Recording.ASYNC) {
+            awaitApplied(tail.get());
+        }
+        if (!lockHistory) return history.getHistory();
+        synchronized (history) {
+            return history.getHistory();
+        }
+    }
+
+    private void publish(TaskValue value, int id, String client) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+            } else if (difference < 0) {
+                // буфер заполнен: ждем, пока поток записи освободит ячейку
+                wakeRecorder();
+                Thread.onSpinWait();
+            }
+        }
+        values[index] = value;
+        ids[index] = id;
+        clients[index] = client;
+        sequences.set(index, position + 1);
+        if (recorderParked || !recorderRunning.get()) {
+            wakeRecorder();
+        }
+    }
+
+    private void wakeRecorder() {
+        if (recorderRunning.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::runRecorder, "history-recorder");
+            thread.setDaemon(true);
+            recorder = thread;
+            thread.start();
+        } else {
+            LockSupport.unpark(recorder);
+        }
+    }
+
+    private boolean hasPublished() {
+        return sequences.get((int) head & mask) == head + 1;
+    }
+
+    private void runRecorder() {
+        while (true) {
+            drain();
+            recorderParked = true;
+            if (!hasPublished()) {
+                LockSupport.parkNanos(this, IDLE_TIMEOUT_NANOS);
+            }
+            recorderParked = false;
+            if (!hasPublished()) {
+                recorderRunning.set(false);
+                // событие могло быть опубликовано после проверки; тогда поток продолжает работу сам
+                if (!hasPublished() || !recorderRunning.compareAndSet(false, true)) return;
+            }
+        }
+    }
+
+    private void drain() {
+        if (!hasPublished()) return;
+        while (hasPublished()) {
+            int index = (int) head & mask;
+            TaskValue value = values[index];
+            int id = ids[index];
+            String client = clients[index];
+            values[index] = null;
+            clients[index] = null;
+            sequences.set(index, head + mask + 1);
+            head++;
+            try {
+                apply(value, id, client);
+            } catch (RuntimeException exception) {
+                // ошибка одного события не должна останавливать запись остальных
+            }
+            applied = head;
+        }
+        synchronized (appliedMonitor) {
+            appliedMonitor.notifyAll();
+        }
+    }
+
+    private void apply(TaskValue value, int id, String client) {
+        if (!lockHistory) {
+            applyUnlocked(value, id, client);
+            return;
+        }
+        synchronized (history) {
+            applyUnlocked(value, id, client);
+        }
+    }
+
+    private void applyUnlocked(TaskValue value, int id, String client) {
+        if (value == null) {
+            history.remove(id);
+            return;
+        }
+        String previous = PartitionedHistoryManager.setCurrentClient(client);
+        try {
+            history.add(value);
+        } finally {
+            PartitionedHistoryManager.setCurrentClient(previous);
+        }
+    }
+
+    private void awaitApplied(long position) {
+        if (applied >= position) return;
+        boolean interrupted = false;
+        synchronized (appliedMonitor) {
+            while (applied < position) {
+                try {
+                    appliedMonitor.wait();
+                } catch (InterruptedException exception) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
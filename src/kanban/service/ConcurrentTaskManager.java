@@ -0,0 +1,295 @@
+package kanban.service;
+
+import kanban.exception.ManagerSaveException;
+import kanban.model.Epic;
+import kanban.model.Operation;
+import kanban.model.Subtask;
+import kanban.model.Task;
+import kanban.model.TimeSlot;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Потокобезопасная обертка над любым TaskManager.
+ * <p>
+ * Изменения выполняются под блокировкой записи, поэтому проверка пересечений, выдача id, вставка в индекс
+ * расписания и пересчет эпика происходят атомарно. Чтение списков идет под блокировкой чтения и может
+ * выполняться параллельно. Получение задачи по id пишет в историю просмотров, поэтому берет блокировку
+ * записи, если только история обернутого менеджера не потокобезопасна (supportsConcurrentReads).
+ * <p>
+ * Если обернутый менеджер ждет записи изменений на диск, ожидание идет уже после снятия блокировки записи
+ * (beginDeferredCommit/awaitDeferredCommit): иначе изменения других потоков не попали бы в ту же групповую
+ * запись. Читатели при этом могут увидеть изменение до того, как оно записано.
+ */
+public class ConcurrentTaskManager implements TaskManager, AutoCloseable {
+    private final TaskManager taskManager;
+    private final ReentrantReadWriteLock lock;
+    private final boolean concurrentLookups;
+
+    public ConcurrentTaskManager() {
+        this(new InMemoryTaskManager());
+    }
+
+    public ConcurrentTaskManager(TaskManager taskManager) {
+        this.taskManager = taskManager;
+        this.lock = new ReentrantReadWriteLock();
+        this.concurrentLookups = taskManager.supportsConcurrentReads();
+    }
+
+    public TaskManager getTaskManager() {
+        return taskManager;
+    }
+
+    private <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            taskManager.beginDeferredCommit();
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+            taskManager.awaitDeferredCommit();
+        }
+    }
+
+    private <T> T lookup(Supplier<T> action) {
+        return concurrentLookups ? read(action) : write(action);
+    }
+
+    private void write(Runnable action) {
+        write(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return read(taskManager::getTasks);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return read(taskManager::getSubtasks);
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return read(taskManager::getEpics);
+    }
+
+    @Override
+    public ArrayList<Task> getTasks(Integer afterId, int limit) {
+        return read(() -> taskManager.getTasks(afterId, limit));
+    }
+
+    @Override
+    public ArrayList<Subtask> getSubtasks(Integer afterId, int limit) {
+        return read(() -> taskManager.getSubtasks(afterId, limit));
+    }
+
+    @Override
+    public ArrayList<Epic> getEpics(Integer afterId, int limit) {
+        return read(() -> taskManager.getEpics(afterId, limit));
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        write(taskManager::deleteAllTasks);
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        write(taskManager::deleteAllSubtasks);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        write(taskManager::deleteAllEpics);
+    }
+
+    @Override
+    public Task getTask(Integer id) {
+        return lookup(() -> taskManager.getTask(id));
+    }
+
+    @Override
+    public Subtask getSubtask(Integer id) {
+        return lookup(() -> taskManager.getSubtask(id));
+    }
+
+    @Override
+    public Epic getEpic(Integer id) {
+        return lookup(() -> taskManager.getEpic(id));
+    }
+
+    @Override
+    public Task addTask(Task task) {
+        return write(() -> taskManager.addTask(task));
+    }
+
+    @Override
+    public Subtask addSubtask(Subtask subtask) {
+        return write(() -> taskManager.addSubtask(subtask));
+    }
+
+    @Override
+    public Epic addEpic(Epic epic) {
+        return write(() -> taskManager.addEpic(epic));
+    }
+
+    @Override
+    public Task updateTask(Task task) {
+        return write(() -> taskManager.updateTask(task));
+    }
+
+    @Override
+    public Subtask updateSubtask(Subtask subtask) {
+        return write(() -> taskManager.updateSubtask(subtask));
+    }
+
+    @Override
+    public Epic updateEpic(Epic epic) {
+        return write(() -> taskManager.updateEpic(epic));
+    }
+
+    @Override
+    public void deleteTask(Integer id) {
+        write(() -> taskManager.deleteTask(id));
+    }
+
+    @Override
+    public void deleteSubtask(Integer id) {
+        write(() -> taskManager.deleteSubtask(id));
+    }
+
+    @Override
+    public void deleteEpic(Integer id) {
+        write(() -> taskManager.deleteEpic(id));
+    }
+
+    @Override
+    public ArrayList<Subtask> getEpicSubtasks(Epic epic) {
+        return lookup(() -> taskManager.getEpicSubtasks(epic));
+    }
+
+    @Override
+    public boolean supportsConcurrentReads() {
+        return true;
+    }
+
+    @Override
+    public void beginDeferredCommit() {
+        taskManager.beginDeferredCommit();
+    }
+
+    @Override
+    public void awaitDeferredCommit() {
+        taskManager.awaitDeferredCommit();
+    }
+
+    @Override
+    public List<Task> applyBatch(List<Operation> operations) {
+        return write(() -> taskManager.applyBatch(operations));
+    }
+
+    /**
+     * Источник читается вне блокировки (он может ждать, например, тело HTTP-запроса), а блокировка записи
+     * берется на применение каждого пакета. Читатели могут увидеть уже примененные пакеты незавершенного импорта.
+     */
+    @Override
+    public int importTasks(Iterator<? extends Task> source, int batchSize, IntConsumer progress) {
+        TaskImport taskImport = new TaskImport(source, batchSize);
+        while (true) {
+            List<Operation> batch = taskImport.nextBatch();
+            if (batch.isEmpty()) break;
+            progress.accept(taskImport.commit(write(() -> taskManager.applyBatch(batch))));
+        }
+        return taskImport.getImported();
+    }
+
+    @Override
+    public <T> T readConsistently(Supplier<T> action) {
+        return read(() -> taskManager.readConsistently(action));
+    }
+
+    @Override
+    public ArrayList<Task> getHistory() {
+        return read(taskManager::getHistory);
+    }
+
+    @Override
+    public ArrayList<Task> getHistory(Integer afterId, int limit) {
+        return read(() -> taskManager.getHistory(afterId, limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return read(taskManager::getPrioritizedTasks);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime after, int limit) {
+        return read(() -> taskManager.getPrioritizedTasks(after, limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        return read(() -> taskManager.getPrioritizedTasks(from, to, limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, ScheduleIndex.Key after, int limit) {
+        return read(() -> taskManager.getPrioritizedTasks(from, to, after, limit));
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit) {
+        return read(() -> taskManager.findFreeSlots(duration, from, to, limit));
+    }
+
+    @Override
+    public long getRevision() {
+        return read(taskManager::getRevision);
+    }
+
+    @Override
+    public Instant getLastModified() {
+        return read(taskManager::getLastModified);
+    }
+
+    /**
+     * Закрывает обернутый менеджер под блокировкой записи, если он AutoCloseable: закрытие не пересекается
+     * с изменениями других потоков.
+     */
+    @Override
+    public void close() {
+        write(() -> {
+            if (taskManager instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (RuntimeException exception) {
+                    throw exception;
+                } catch (Exception exception) {
+                    throw new ManagerSaveException(exception);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,118 @@
+package kanban.service;
+
+import kanban.model.Epic;
+import kanban.model.Subtask;
+import kanban.model.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.TreeMap;
+
+/**
+ * Накопленные значения расчетных полей эпика: счетчики статусов, суммарная длительность и мультимножества
+ * времен начала и окончания подзадач. Добавление и удаление подзадачи стоит O(log k) вместо полного пересчета.
+ * <p>
+ * Вклад подзадачи запоминается по id при добавлении, и удаление вычитает именно его, а не текущие поля
+ * подзадачи: вклад вычитается верно, даже если объект подзадачи успели изменить.
+ */
+public class EpicAggregate {
+    private record Contribution(TaskStatus status, LocalDateTime startTime, LocalDateTime endTime,
+                                Duration duration) {
+    }
+
+    private final HashMap<Integer, Contribution> contributions;
+    private final int[] statusCounters;
+    private int subtasksCount;
+    private Duration totalDuration;
+    private int durationsCount;
+    private final TreeMap<LocalDateTime, Integer> startTimes;
+    private final TreeMap<LocalDateTime, Integer> endTimes;
+
+    public EpicAggregate() {
+        contributions = new HashMap<>();
+        statusCounters = new int[TaskStatus.values().length];
+        totalDuration = Duration.ZERO;
+        startTimes = new TreeMap<>();
+        endTimes = new TreeMap<>();
+    }
+
+    private static TaskStatus statusOf(Subtask subtask) {
+        return subtask.getStatus() == null ? TaskStatus.NEW : subtask.getStatus();
+    }
+
+    private static void increment(TreeMap<LocalDateTime, Integer> multiset, LocalDateTime key) {
+        if (key != null) {
+            multiset.merge(key, 1, Integer::sum);
+        }
+    }
+
+    private static void decrement(TreeMap<LocalDateTime, Integer> multiset, LocalDateTime key) {
+        if (key != null) {
+            multiset.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Добавляет вклад подзадачи или заменяет вклад подзадачи с тем же id.
+     */
+    public void add(Subtask subtask) {
+        remove(subtask.getId());
+        Contribution contribution = new Contribution(statusOf(subtask), subtask.getStartTime(),
+                subtask.getEndTime(), subtask.getDuration());
+        contributions.put(subtask.getId(), contribution);
+        subtasksCount++;
+        statusCounters[contribution.status().ordinal()]++;
+        if (contribution.duration() != null) {
+            totalDuration = totalDuration.plus(contribution.duration());
+            durationsCount++;
+        }
+        increment(startTimes, contribution.startTime());
+        increment(endTimes, contribution.endTime());
+    }
+
+    public void remove(Subtask subtask) {
+        remove(subtask.getId());
+    }
+
+    public void remove(Integer id) {
+        Contribution contribution = contributions.remove(id);
+        if (contribution == null) return;
+        subtasksCount--;
+        statusCounters[contribution.status().ordinal()]--;
+        if (contribution.duration() != null) {
+            totalDuration = totalDuration.minus(contribution.duration());
+            durationsCount--;
+        }
+        decrement(startTimes, contribution.startTime());
+        decrement(endTimes, contribution.endTime());
+    }
+
+    public void clear() {
+        contributions.clear();
+        subtasksCount = 0;
+        Arrays.fill(statusCounters, 0);
+        totalDuration = Duration.ZERO;
+        durationsCount = 0;
+        startTimes.clear();
+        endTimes.clear();
+    }
+
+    public TaskStatus getStatus() {
+        if (subtasksCount == 0 || statusCounters[TaskStatus.NEW.ordinal()] == subtasksCount) {
+            return TaskStatus.NEW;
+        } else if (statusCounters[TaskStatus.DONE.ordinal()] == subtasksCount) {
+            return TaskStatus.DONE;
+        } else {
+            return TaskStatus.IN_PROGRESS;
+        }
+    }
+
+    public void applyTo(Epic epic) {
+        epic.setStatus(getStatus());
+        epic.setStartTime(startTimes.isEmpty() ? null : startTimes.firstKey());
+        epic.setDuration(durationsCount == 0 ? null : totalDuration);
+        epic.setEndTime(endTimes.isEmpty() ? null : endTimes.lastKey());
+    }
+}
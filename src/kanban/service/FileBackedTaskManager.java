@@ -4,102 +4,370 @@ import kanban.exception.ManagerSaveException;
 import kanban.model.*;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+public class FileBackedTaskManager extends InMemoryTaskManager implements TaskManager, AutoCloseable {
+    /**
+     * SNAPSHOT - после каждого изменения файл перезаписывается целиком.
+     * JOURNAL - каждое изменение дописывается одной записью в журнал рядом с файлом, а снимок всех задач
+     * пересобирается в фоне, когда журнал превышает заданный размер.
+     * WRITE_BEHIND - изменения только помечают состояние как измененное, а отдельный поток записывает
+     * один снимок на все изменения, накопившиеся за окно группировки.
+     */
+    public enum PersistenceMode { SNAPSHOT, JOURNAL, WRITE_BEHIND }
+
+    /**
+     * Для режима WRITE_BEHIND: ASYNC - изменение возвращается сразу, SYNC - изменение ждет записи снимка,
+     * в который оно попало.
+     */
+    public enum Durability { ASYNC, SYNC }
+
+    /**
+     * Формат файла снимка. При загрузке формат определяется по содержимому файла, поэтому менеджер
+     * с форматом BINARY читает и старые CSV-файлы, а следующий снимок пишет уже в бинарном виде.
+     */
+    public enum SnapshotFormat { CSV, BINARY }
+
+    public static final String JOURNAL_SUFFIX = ".journal";
+    public static final String COMPACTING_JOURNAL_SUFFIX = ".journal.compacting";
+    public static final String TEMPORARY_SUFFIX = ".tmp";
+    public static final int KEPT_SNAPSHOT_BACKUPS = 2;
+    public static final long DEFAULT_JOURNAL_COMPACTION_THRESHOLD = 1024 * 1024;
+    public static final Duration DEFAULT_WRITE_BEHIND_WINDOW = Duration.ofMillis(5);
+    public static final int DEFAULT_WRITE_BEHIND_BATCH_SIZE = 1000;
+
+    private enum JournalOperation { PUT, DELETE, DELETE_ALL }
 
-public class FileBackedTaskManager extends InMemoryTaskManager implements TaskManager {
     private final File file;
+    private final PersistenceMode persistenceMode;
+    private final SnapshotFormat snapshotFormat;
+    private final File journalFile;
+    private final File compactingJournalFile;
+    private long journalCompactionThreshold;
+    private FileChannel journalChannel;
+    private ExecutorService compactionExecutor;
+    private Future<?> compaction;
+    private final AtomicBoolean compactionInProgress;
+    private volatile RuntimeException compactionFailure;
+    private Durability durability;
+    private Duration writeBehindWindow;
+    private int writeBehindBatchSize;
+    private Thread flusher;
+    private boolean flusherStopped;
+    private boolean flushRequested;
+    private long changesCount;
+    private long committedChangesCount;
+    private long commitsCount;
+    // для потоков после beginDeferredCommit(): номер последнего изменения, записи которого поток еще не дождался
+    private final ThreadLocal<long[]> deferredCommit = new ThreadLocal<>();
+    private RuntimeException flushFailure;
+    private long failedChangesCount;
+    // во время пакетного изменения сохранение откладывается; в режиме JOURNAL здесь копятся записи пакета
+    private List<String> batchRecords;
+    // во время импорта пакеты не сохраняются по отдельности (кроме режима JOURNAL)
+    private boolean importInProgress;
 
     @Override
-    public void deleteAllTasks() {
+    public synchronized void deleteAllTasks() {
         super.deleteAllTasks();
-        save();
+        saveDeletionOfAll(TaskTypes.TASK);
     }
 
     @Override
-    public void deleteAllSubtasks() {
+    public synchronized void deleteAllSubtasks() {
         super.deleteAllSubtasks();
-        save();
+        saveDeletionOfAll(TaskTypes.SUBTASK);
     }
 
     @Override
-    public void deleteAllEpics() {
+    public synchronized void deleteAllEpics() {
         super.deleteAllEpics();
-        save();
+        saveDeletionOfAll(TaskTypes.EPIC);
     }
 
     @Override
-    public Task addTask(Task task) {
+    public synchronized Task addTask(Task task) {
         Task addedTask = super.addTask(task);
-        save();
+        saveChange(addedTask);
         return addedTask;
     }
 
     @Override
-    public Subtask addSubtask(Subtask subtask) {
+    public synchronized Subtask addSubtask(Subtask subtask) {
         Subtask addedSubtask = super.addSubtask(subtask);
-        save();
+        saveChange(addedSubtask);
         return addedSubtask;
     }
 
     @Override
-    public Epic addEpic(Epic epic) {
+    public synchronized Epic addEpic(Epic epic) {
         Epic addedEpic = super.addEpic(epic);
-        save();
+        saveChange(addedEpic);
         return addedEpic;
     }
 
     @Override
-    public Task updateTask(Task task) {
+    public synchronized Task updateTask(Task task) {
         Task updatedTask = super.updateTask(task);
-        save();
+        saveChange(updatedTask);
         return updatedTask;
     }
 
     @Override
-    public Subtask updateSubtask(Subtask subtask) {
+    public synchronized Subtask updateSubtask(Subtask subtask) {
         Subtask updatedSubtask = super.updateSubtask(subtask);
-        save();
+        saveChange(updatedSubtask);
         return updatedSubtask;
     }
 
     @Override
-    public Epic updateEpic(Epic epic) {
+    public synchronized Epic updateEpic(Epic epic) {
         Epic updatedEpic = super.updateEpic(epic);
-        save();
+        saveChange(updatedEpic);
         return updatedEpic;
     }
 
     @Override
-    public void deleteTask(Integer id) {
+    public synchronized void deleteTask(Integer id) {
         super.deleteTask(id);
-        save();
+        saveDeletion(TaskTypes.TASK, id);
     }
 
     @Override
-    public void deleteSubtask(Integer id) {
+    public synchronized void deleteSubtask(Integer id) {
         super.deleteSubtask(id);
-        save();
+        saveDeletion(TaskTypes.SUBTASK, id);
     }
 
     @Override
-    public void deleteEpic(Integer id) {
+    public synchronized void deleteEpic(Integer id) {
         super.deleteEpic(id);
-        save();
+        saveDeletion(TaskTypes.EPIC, id);
+    }
+
+    /**
+     * Пакет сохраняется один раз после успешного применения: одним снимком, одной пометкой для
+     * WRITE_BEHIND или одной дозаписью журнала с общим fsync. Если пакет откатился, ничего не пишется.
+     */
+    @Override
+    public synchronized List<Task> applyBatch(List<Operation> operations) {
+        batchRecords = new ArrayList<>();
+        List<Task> results;
+        List<String> records;
+        try {
+            results = super.applyBatch(operations);
+        } finally {
+            records = batchRecords;
+            batchRecords = null;
+        }
+
+        if (importInProgress && persistenceMode != PersistenceMode.JOURNAL) {
+            return results;
+        }
+        if (persistenceMode == PersistenceMode.SNAPSHOT) {
+            save();
+        } else if (persistenceMode == PersistenceMode.WRITE_BEHIND) {
+            markDirty();
+        } else if (!records.isEmpty()) {
+            journal(records.toArray(new String[0]));
+        }
+        return results;
+    }
+
+    /**
+     * Импорт сохраняется один раз в конце, в том числе после ошибки, так как примененные пакеты остаются.
+     * В режиме JOURNAL каждый пакет дописывается в журнал сразу, чтобы не копить записи всего импорта в памяти.
+     */
+    @Override
+    public synchronized int importTasks(Iterator<? extends Task> source, int batchSize, IntConsumer progress) {
+        long revisionBefore = getRevision();
+        importInProgress = true;
+        try {
+            return super.importTasks(source, batchSize, progress);
+        } finally {
+            importInProgress = false;
+            if (getRevision() != revisionBefore) {
+                if (persistenceMode == PersistenceMode.SNAPSHOT) {
+                    save();
+                } else if (persistenceMode == PersistenceMode.WRITE_BEHIND) {
+                    markDirty();
+                }
+            }
+        }
+    }
+
+    /**
+     * Задачи из бинарного снимка загружаются без name и description. Перед выдачей наружу строки
+     * декодируются, так как сериализация (например, в Gson) читает поля напрямую.
+     */
+    private static <L extends List<? extends Task>> L materializeText(L loadedTasks) {
+        for (Task task : loadedTasks) {
+            if (!task.isTextMaterialized()) {
+                task.getName();
+            }
+        }
+        return loadedTasks;
+    }
+
+    @Override
+    protected <T extends Task> List<T> createView(Collection<T> values) {
+        return materializeText(super.createView(values));
+    }
+
+    @Override
+    public ArrayList<Task> getTasks(Integer afterId, int limit) {
+        return materializeText(super.getTasks(afterId, limit));
+    }
+
+    @Override
+    public ArrayList<Subtask> getSubtasks(Integer afterId, int limit) {
+        return materializeText(super.getSubtasks(afterId, limit));
+    }
+
+    @Override
+    public ArrayList<Epic> getEpics(Integer afterId, int limit) {
+        return materializeText(super.getEpics(afterId, limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime after, int limit) {
+        return materializeText(super.getPrioritizedTasks(after, limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        return materializeText(super.getPrioritizedTasks(from, to, limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, ScheduleIndex.Key after, int limit) {
+        return materializeText(super.getPrioritizedTasks(from, to, after, limit));
     }
 
     public File getFile() {
         return file;
     }
 
+    public File getJournalFile() {
+        return journalFile;
+    }
+
+    public PersistenceMode getPersistenceMode() {
+        return persistenceMode;
+    }
+
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    public void setJournalCompactionThreshold(long journalCompactionThreshold) {
+        this.journalCompactionThreshold = journalCompactionThreshold;
+    }
+
+    public synchronized void setDurability(Durability durability) {
+        this.durability = durability;
+    }
+
+    public synchronized void setWriteBehindWindow(Duration writeBehindWindow) {
+        this.writeBehindWindow = writeBehindWindow;
+        notifyAll();
+    }
+
+    public synchronized void setWriteBehindBatchSize(int writeBehindBatchSize) {
+        this.writeBehindBatchSize = writeBehindBatchSize;
+        notifyAll();
+    }
+
     public FileBackedTaskManager(File file) {
+        this(file, PersistenceMode.SNAPSHOT);
+    }
+
+    public FileBackedTaskManager(File file, PersistenceMode persistenceMode) {
+        this(file, persistenceMode, SnapshotFormat.CSV);
+    }
+
+    public FileBackedTaskManager(File file, PersistenceMode persistenceMode, SnapshotFormat snapshotFormat) {
         super();
         this.file = file;
+        this.persistenceMode = persistenceMode;
+        this.snapshotFormat = snapshotFormat;
+        this.journalFile = new File(file.getPath() + JOURNAL_SUFFIX);
+        this.compactingJournalFile = new File(file.getPath() + COMPACTING_JOURNAL_SUFFIX);
+        this.journalCompactionThreshold = DEFAULT_JOURNAL_COMPACTION_THRESHOLD;
+        this.compactionInProgress = new AtomicBoolean(false);
+        this.durability = Durability.ASYNC;
+        this.writeBehindWindow = DEFAULT_WRITE_BEHIND_WINDOW;
+        this.writeBehindBatchSize = DEFAULT_WRITE_BEHIND_BATCH_SIZE;
     }
 
-    private void save() {
+    private void saveChange(Task task) {
+        if (batchRecords != null) {
+            if (persistenceMode == PersistenceMode.JOURNAL && task != null) {
+                batchRecords.add(JournalOperation.PUT + TaskParser.DELIMITER + TaskParser.taskToString(task));
+            }
+            return;
+        }
+        if (persistenceMode == PersistenceMode.SNAPSHOT) {
+            save();
+        } else if (persistenceMode == PersistenceMode.WRITE_BEHIND) {
+            markDirty();
+        } else if (task != null) {
+            journal(JournalOperation.PUT + TaskParser.DELIMITER + TaskParser.taskToString(task));
+        }
+    }
+
+    private void saveDeletion(TaskTypes taskType, Integer id) {
+        if (batchRecords != null) {
+            if (persistenceMode == PersistenceMode.JOURNAL) {
+                batchRecords.add(JournalOperation.DELETE + TaskParser.DELIMITER + taskType + TaskParser.DELIMITER + id);
+            }
+            return;
+        }
+        if (persistenceMode == PersistenceMode.SNAPSHOT) {
+            save();
+        } else if (persistenceMode == PersistenceMode.WRITE_BEHIND) {
+            markDirty();
+        } else {
+            journal(JournalOperation.DELETE + TaskParser.DELIMITER + taskType + TaskParser.DELIMITER + id);
+        }
+    }
+
+    private void saveDeletionOfAll(TaskTypes taskType) {
+        if (batchRecords != null) {
+            if (persistenceMode == PersistenceMode.JOURNAL) {
+                batchRecords.add(JournalOperation.DELETE_ALL + TaskParser.DELIMITER + taskType);
+            }
+            return;
+        }
+        if (persistenceMode == PersistenceMode.SNAPSHOT) {
+            save();
+        } else if (persistenceMode == PersistenceMode.WRITE_BEHIND) {
+            markDirty();
+        } else {
+            journal(JournalOperation.DELETE_ALL + TaskParser.DELIMITER + taskType);
+        }
+    }
+
+    private static void createParentFolder(File file) {
         // create folder if it doesn't exist
         if (!file.exists()) {
             File folder = file.getParentFile();
@@ -109,60 +377,564 @@ public class FileBackedTaskManager extends InMemoryTaskManager implements TaskMa
                 }
             }
         }
+    }
+
+    /**
+     * Кодирует текущее состояние в содержимое файла снимка в выбранном формате.
+     */
+    private byte[] encodeSnapshot() {
+        // прямо из хранилища: списки для чтения декодировали бы строки задач из бинарного снимка
+        List<Task> allTasks = new ArrayList<>(tasks.values());
+        allTasks.addAll(epics.values());
+        allTasks.addAll(subtasks.values());
+        return encodeSnapshot(allTasks);
+    }
+
+    /**
+     * Копия задачи для снимка, который кодируется вне монитора менеджера. Еще не декодированные строки
+     * не декодируются, а переходят в копию.
+     */
+    private static Task copyForSnapshot(Task task) {
+        LazyTaskText lazyText = task.getLazyText();
+        String name = lazyText == null ? task.getName() : null;
+        String description = lazyText == null ? task.getDescription() : null;
+        Task copy = switch (task.getTaskType()) {
+            case TASK -> new Task(task.getId(), task.getStatus(), name, description, task.getStartTime(),
+                    task.getDuration());
+            case EPIC -> new Epic(task.getId(), task.getStatus(), name, description, task.getStartTime(),
+                    task.getDuration());
+            case SUBTASK -> new Subtask(task.getId(), task.getStatus(), name, description, ((Subtask) task).epic,
+                    task.getStartTime(), task.getDuration());
+        };
+        copy.setLazyText(lazyText);
+        return copy;
+    }
+
+    /**
+     * Копирует текущее состояние для снимка. Копирование дешевле кодирования, поэтому под монитором
+     * делается только оно, а encodeSnapshot(List) вызывается уже без него.
+     */
+    private List<Task> copyForSnapshot() {
+        List<Task> allTasks = new ArrayList<>(tasks.size() + epics.size() + subtasks.size());
+        tasks.values().forEach(task -> allTasks.add(copyForSnapshot(task)));
+        epics.values().forEach(epic -> allTasks.add(copyForSnapshot(epic)));
+        subtasks.values().forEach(subtask -> allTasks.add(copyForSnapshot(subtask)));
+        return allTasks;
+    }
+
+    private byte[] encodeSnapshot(List<Task> allTasks) {
+        if (snapshotFormat == SnapshotFormat.BINARY) {
+            return TaskBinaryCodec.encode(allTasks);
+        }
+        StringBuilder content = new StringBuilder(TaskParser.getHeader());
+        for (Task task : allTasks) {
+            content.append(System.lineSeparator()).append(TaskParser.taskToString(task));
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static File getSnapshotBackup(File file, int number) {
+        return new File(file.getPath() + "." + number);
+    }
+
+    /**
+     * Пишет снимок во временный файл рядом с основным, сбрасывает его на диск и атомарно подменяет им
+     * основной файл. Предыдущие снимки сдвигаются в резервные копии file.1, file.2 и т.д.,
+     * поэтому сбой во время записи не оставляет недописанного файла.
+     */
+    private void writeSnapshot(byte[] content) {
+        createParentFolder(file);
+        Path temporaryFile = Path.of(file.getPath() + TEMPORARY_SUFFIX);
+
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+
+            if (file.exists() && file.length() > 0) {
+                for (int number = KEPT_SNAPSHOT_BACKUPS; number > 1; number--) {
+                    File backup = getSnapshotBackup(file, number - 1);
+                    if (backup.exists()) {
+                        Files.move(backup.toPath(), getSnapshotBackup(file, number).toPath(),
+                                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                }
+                Files.move(file.toPath(), getSnapshotBackup(file, 1).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.move(temporaryFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new ManagerSaveException(exception);
+        }
+    }
 
-        try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
-            bufferedWriter.write(TaskParser.getHeader());
-            for (Task task : getTasks()) {
-                bufferedWriter.newLine();
-                bufferedWriter.write(TaskParser.taskToString(task));
+    private void save() {
+        writeSnapshot(encodeSnapshot());
+    }
+
+    /**
+     * Дописывает записи одной операции в журнал и сбрасывает их на диск одним fsync.
+     */
+    private void journal(String... records) {
+        StringBuilder batch = new StringBuilder();
+        for (String record : records) {
+            batch.append(record).append(System.lineSeparator());
+        }
+        try {
+            if (journalChannel == null) {
+                createParentFolder(journalFile);
+                journalChannel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
             }
-            for (Epic epic : getEpics()) {
-                bufferedWriter.newLine();
-                bufferedWriter.write(TaskParser.taskToString(epic));
+            ByteBuffer buffer = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                journalChannel.write(buffer);
             }
-            for (Subtask subtask : getSubtasks()) {
-                bufferedWriter.newLine();
-                bufferedWriter.write(TaskParser.taskToString(subtask));
+            journalChannel.force(false);
+
+            if (journalChannel.size() > journalCompactionThreshold) {
+                compactJournal();
             }
         } catch (IOException exception) {
             throw new ManagerSaveException(exception);
         }
     }
 
-    public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager fileBackedTaskManager = new FileBackedTaskManager(file);
-        if (file.exists()) {
-            try (BufferedReader bufferedReader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
-                // skip header
-                bufferedReader.readLine();
-
-                Integer maxId = 0;
-                while (bufferedReader.ready()) {
-                    String line = bufferedReader.readLine();
-                    Task task = TaskParser.taskFromString(line);
-                    if (task.getId() > maxId) {
-                        maxId = task.getId();
+    /**
+     * Откладывает текущий журнал в сторону и в фоне кодирует и пишет снимок состояния на момент
+     * откладывания. После записи снимка отложенный журнал удаляется. Пока идет предыдущее сжатие,
+     * новое не начинается. Отложенный журнал, оставшийся после неудачного сжатия, не перезаписывается:
+     * текущий журнал дописывается в его конец, и новый снимок покрывает оба.
+     */
+    private void compactJournal() throws IOException {
+        if (!compactionInProgress.compareAndSet(false, true)) return;
+
+        List<Task> snapshotTasks = copyForSnapshot();
+        journalChannel.close();
+        journalChannel = null;
+        try {
+            if (compactingJournalFile.exists()) {
+                appendJournal(journalFile, compactingJournalFile);
+                Files.delete(journalFile.toPath());
+            } else if (!journalFile.renameTo(compactingJournalFile)) {
+                throw new ManagerSaveException("Не удалось переименовать журнал для сжатия.");
+            }
+        } catch (IOException | RuntimeException exception) {
+            compactionInProgress.set(false);
+            throw exception;
+        }
+
+        if (compactionExecutor == null) {
+            compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-compaction");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compaction = compactionExecutor.submit(() -> {
+            try {
+                writeSnapshot(encodeSnapshot(snapshotTasks));
+                if (!compactingJournalFile.delete()) {
+                    throw new ManagerSaveException("Не удалось удалить сжатый журнал.");
+                }
+            } catch (RuntimeException exception) {
+                // хранится до awaitCompaction(): следующее успешное сжатие не должно его скрыть
+                compactionFailure = exception;
+            } finally {
+                compactionInProgress.set(false);
+            }
+        });
+    }
+
+    /**
+     * Дописывает журнал source в конец журнала target и сбрасывает target на диск. Если сбой случится
+     * до удаления source, его записи при загрузке применятся дважды подряд, что не меняет результата:
+     * записи задают итоговое значение задачи или удаление, а не приращение.
+     */
+    private static void appendJournal(File source, File target) throws IOException {
+        try (FileChannel sourceChannel = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             FileChannel targetChannel = FileChannel.open(target.toPath(), StandardOpenOption.WRITE,
+                     StandardOpenOption.APPEND)) {
+            long position = 0;
+            long size = sourceChannel.size();
+            while (position < size) {
+                position += sourceChannel.transferTo(position, size - position, targetChannel);
+            }
+            targetChannel.force(false);
+        }
+    }
+
+    /**
+     * Помечает состояние измененным для режима WRITE_BEHIND. Вызывается под монитором менеджера.
+     * При Durability.SYNC ждет записи снимка, в который попало изменение.
+     */
+    private void markDirty() {
+        changesCount++;
+        if (flusher == null) {
+            flusher = new Thread(this::runFlusher, "write-behind-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+        notifyAll();
+        if (durability == Durability.SYNC) {
+            long[] deferred = deferredCommit.get();
+            if (deferred != null) {
+                deferred[0] = changesCount;
+            } else {
+                awaitCommit(changesCount);
+            }
+        }
+    }
+
+    @Override
+    public void beginDeferredCommit() {
+        if (deferredCommit.get() == null) {
+            deferredCommit.set(new long[1]);
+        }
+    }
+
+    @Override
+    public void awaitDeferredCommit() {
+        long[] deferred = deferredCommit.get();
+        deferredCommit.remove();
+        if (deferred != null && deferred[0] > 0) {
+            awaitCommit(deferred[0]);
+        }
+    }
+
+    /**
+     * Число записанных в режиме WRITE_BEHIND снимков.
+     */
+    public synchronized long getCommitsCount() {
+        return commitsCount;
+    }
+
+    private synchronized void awaitCommit(long changeNumber) {
+        while (committedChangesCount < changeNumber) {
+            if (flushFailure != null && failedChangesCount >= changeNumber) {
+                throw new ManagerSaveException(flushFailure);
+            }
+            if (flusher == null || !flusher.isAlive()) {
+                throw new ManagerSaveException("Поток записи снимков остановлен.");
+            }
+            try {
+                wait();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new ManagerSaveException(exception);
+            }
+        }
+    }
+
+    /**
+     * Ждет, пока появятся изменения, и дает им накопиться в течение окна группировки
+     * или до набора writeBehindBatchSize изменений. Возвращает false, если поток нужно остановить.
+     */
+    private synchronized boolean awaitChanges() throws InterruptedException {
+        while (!flusherStopped && committedChangesCount == changesCount) {
+            wait();
+        }
+        if (committedChangesCount == changesCount) return false;
+
+        long deadline = System.nanoTime() + writeBehindWindow.toNanos();
+        long remaining;
+        while (!flusherStopped && !flushRequested && changesCount - committedChangesCount < writeBehindBatchSize
+                && (remaining = deadline - System.nanoTime()) > 0) {
+            wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+        }
+        return true;
+    }
+
+    private void runFlusher() {
+        try {
+            while (awaitChanges()) {
+                byte[] snapshot;
+                long changeNumber;
+                synchronized (this) {
+                    snapshot = encodeSnapshot();
+                    changeNumber = changesCount;
+                    flushRequested = false;
+                }
+                try {
+                    writeSnapshot(snapshot);
+                    synchronized (this) {
+                        committedChangesCount = changeNumber;
+                        commitsCount++;
+                        flushFailure = null;
+                        notifyAll();
                     }
-                    switch (task.getTaskType()) {
-                        case TASK -> fileBackedTaskManager.tasks.put(task.getId(), task);
-                        case EPIC -> fileBackedTaskManager.epics.put(task.getId(), (Epic) task);
-                        case SUBTASK -> fileBackedTaskManager.subtasks.put(task.getId(), (Subtask) task);
+                } catch (RuntimeException exception) {
+                    synchronized (this) {
+                        flushFailure = exception;
+                        failedChangesCount = changeNumber;
+                        notifyAll();
+                        // ждем новое изменение или явный flush, чтобы не повторять неудачную запись в цикле
+                        while (!flusherStopped && !flushRequested && changesCount == changeNumber) {
+                            wait();
+                        }
                     }
                 }
-                fileBackedTaskManager.idCounter = maxId;
-            } catch (IOException exception) {
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Для режима WRITE_BEHIND: немедленно записывает накопленные изменения и ждет окончания записи.
+     */
+    public synchronized void flush() {
+        if (flusher == null || committedChangesCount == changesCount) return;
+        flushFailure = null;
+        flushRequested = true;
+        notifyAll();
+        awaitCommit(changesCount);
+    }
+
+    /**
+     * Дожидается окончания фонового сжатия журнала, если оно идет, и сообщает о неудаче сжатия,
+     * случившейся после прошлого вызова. Отложенный журнал неудачного сжатия остается на диске
+     * и входит в следующее сжатие, поэтому записи не теряются.
+     */
+    public void awaitCompaction() {
+        Future<?> currentCompaction = compaction;
+        if (currentCompaction != null) {
+            try {
+                currentCompaction.get();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } catch (Exception exception) {
                 throw new ManagerSaveException(exception);
             }
+        }
+        RuntimeException failure = compactionFailure;
+        if (failure != null) {
+            compactionFailure = null;
+            throw failure instanceof ManagerSaveException ? failure : new ManagerSaveException(failure);
+        }
+    }
 
-            fileBackedTaskManager.getTasks()
-                    .forEach(fileBackedTaskManager::addToSortedTasks);
+    @Override
+    public void close() {
+        if (flusher != null) {
+            try {
+                flush();
+            } finally {
+                synchronized (this) {
+                    flusherStopped = true;
+                    notifyAll();
+                }
+                try {
+                    flusher.join();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                flusher = null;
+            }
+        }
+        try {
+            awaitCompaction();
+        } finally {
+            if (compactionExecutor != null) {
+                compactionExecutor.shutdown();
+                compactionExecutor = null;
+            }
+            if (journalChannel != null) {
+                try {
+                    journalChannel.close();
+                } catch (IOException exception) {
+                    throw new ManagerSaveException(exception);
+                } finally {
+                    journalChannel = null;
+                }
+            }
+        }
+    }
+
+    private void putLoadedTask(Task task) {
+        switch (task.getTaskType()) {
+            case TASK -> tasks.put(task.getId(), task);
+            case EPIC -> epics.put(task.getId(), (Epic) task);
+            case SUBTASK -> subtasks.put(task.getId(), (Subtask) task);
+        }
+        if (task.getId() > idCounter) {
+            idCounter = task.getId();
+        }
+    }
 
-            // fill in list of subtasks' ids into its epics
-            for (Subtask subtask : fileBackedTaskManager.getSubtasks()) {
-                Epic epic = fileBackedTaskManager.epics.get(subtask.epic);
-                epic.getSubtasks().add(subtask.getId());
-                fileBackedTaskManager.addToSortedTasks(subtask);
+    /**
+     * Применяет запись журнала к загружаемым задачам. Расчетные поля эпиков в журнал не пишутся, поэтому
+     * id эпиков, чьи сабтаски менялись, собираются в changedEpics для пересчета после загрузки.
+     */
+    private void replayRecord(String record, Set<Integer> changedEpics) {
+        String[] parts = record.split(TaskParser.DELIMITER, 2);
+        switch (JournalOperation.valueOf(parts[0])) {
+            case PUT -> {
+                Task task = TaskParser.taskFromString(parts[1]);
+                if (task.getTaskType() == TaskTypes.SUBTASK) {
+                    Subtask oldSubtask = subtasks.get(task.getId());
+                    if (oldSubtask != null) {
+                        changedEpics.add(oldSubtask.epic);
+                    }
+                }
+                putLoadedTask(task);
             }
+            case DELETE -> {
+                String[] deletion = parts[1].split(TaskParser.DELIMITER);
+                Integer id = Integer.parseInt(deletion[1]);
+                switch (TaskTypes.valueOf(deletion[0])) {
+                    case TASK -> tasks.remove(id);
+                    case SUBTASK -> {
+                        Subtask subtask = subtasks.remove(id);
+                        if (subtask != null) {
+                            changedEpics.add(subtask.epic);
+                        }
+                    }
+                    case EPIC -> {
+                        epics.remove(id);
+                        subtasks.values().removeIf(subtask -> subtask.epic.equals(id));
+                    }
+                }
+            }
+            case DELETE_ALL -> {
+                switch (TaskTypes.valueOf(parts[1])) {
+                    case TASK -> tasks.clear();
+                    case SUBTASK -> {
+                        changedEpics.addAll(epics.keySet());
+                        subtasks.clear();
+                    }
+                    case EPIC -> {
+                        epics.clear();
+                        subtasks.clear();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Применяет записи журнала к загруженному снимку. Недописанная последняя запись (обрыв при сбое)
+     * пропускается, поврежденная запись в середине журнала считается ошибкой.
+     */
+    private boolean replayJournal(File journal, Set<Integer> changedEpics) {
+        if (!journal.exists()) return false;
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(journal, StandardCharsets.UTF_8))) {
+            String record = bufferedReader.readLine();
+            while (record != null) {
+                String nextRecord = bufferedReader.readLine();
+                try {
+                    replayRecord(record, changedEpics);
+                } catch (RuntimeException exception) {
+                    if (nextRecord != null) {
+                        throw new ManagerSaveException(exception);
+                    }
+                }
+                record = nextRecord;
+            }
+        } catch (IOException exception) {
+            throw new ManagerSaveException(exception);
+        }
+        return true;
+    }
+
+    private static void deleteReplayedJournal(File journal) {
+        if (journal.exists() && !journal.delete()) {
+            throw new ManagerSaveException("Не удалось удалить примененный журнал.");
+        }
+    }
+
+    private static List<Task> readSnapshot(File snapshot) throws IOException {
+        if (TaskBinaryCodec.isBinarySnapshot(snapshot)) {
+            return TaskBinaryCodec.read(snapshot);
+        }
+
+        List<Task> loadedTasks = new ArrayList<>();
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(snapshot, StandardCharsets.UTF_8))) {
+            String header = bufferedReader.readLine();
+            if (header == null) return loadedTasks;
+            if (!header.equals(TaskParser.getHeader())) {
+                throw new ManagerSaveException(String.format("Неверный заголовок файла %s.", snapshot));
+            }
+
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                loadedTasks.add(TaskParser.taskFromString(line));
+            }
+        }
+        return loadedTasks;
+    }
+
+    /**
+     * Читает основной файл, а если он отсутствует или поврежден - самую свежую исправную резервную копию.
+     */
+    private static List<Task> readNewestValidSnapshot(File file) {
+        RuntimeException failure = null;
+        for (int number = 0; number <= KEPT_SNAPSHOT_BACKUPS; number++) {
+            File snapshot = number == 0 ? file : getSnapshotBackup(file, number);
+            if (!snapshot.exists()) continue;
+            try {
+                return readSnapshot(snapshot);
+            } catch (IOException exception) {
+                failure = new ManagerSaveException(exception);
+            } catch (RuntimeException exception) {
+                failure = exception;
+            }
+        }
+        if (failure != null) {
+            throw failure instanceof ManagerSaveException ? failure : new ManagerSaveException(failure);
+        }
+        return new ArrayList<>();
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file) {
+        return loadFromFile(file, PersistenceMode.SNAPSHOT);
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceMode persistenceMode) {
+        return loadFromFile(file, persistenceMode, SnapshotFormat.CSV);
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceMode persistenceMode,
+                                                     SnapshotFormat snapshotFormat) {
+        FileBackedTaskManager fileBackedTaskManager = new FileBackedTaskManager(file, persistenceMode, snapshotFormat);
+        readNewestValidSnapshot(file).forEach(fileBackedTaskManager::putLoadedTask);
+
+        // a journal left after a compaction that didn't finish goes first, then the current one
+        Set<Integer> changedEpics = new HashSet<>();
+        boolean journalReplayed = fileBackedTaskManager.replayJournal(fileBackedTaskManager.compactingJournalFile,
+                changedEpics);
+        journalReplayed |= fileBackedTaskManager.replayJournal(fileBackedTaskManager.journalFile, changedEpics);
+
+        fileBackedTaskManager.tasks.values()
+                .forEach(fileBackedTaskManager::addToSortedTasks);
+
+        // fill in list of subtasks' ids into its epics and restore epics' calculated fields
+        for (Subtask subtask : fileBackedTaskManager.subtasks.values()) {
+            Epic epic = fileBackedTaskManager.epics.get(subtask.epic);
+            fileBackedTaskManager.linkSubtaskToEpic(subtask, epic);
+            fileBackedTaskManager.addToSortedTasks(subtask);
+        }
+        for (Integer epicId : changedEpics) {
+            Epic epic = fileBackedTaskManager.epics.get(epicId);
+            if (epic != null) {
+                fileBackedTaskManager.calculateEpicFields(epic);
+            }
+        }
+
+        // the storage was filled directly, bypassing markModified
+        fileBackedTaskManager.invalidateViews();
+
+        // replayed journals are folded into a fresh snapshot, so the next journal starts empty
+        if (journalReplayed) {
+            fileBackedTaskManager.save();
+            deleteReplayedJournal(fileBackedTaskManager.compactingJournalFile);
+            deleteReplayedJournal(fileBackedTaskManager.journalFile);
         }
         return fileBackedTaskManager;
     }
@@ -1,13 +1,36 @@
 package kanban.service;
 
 import kanban.model.Task;
+import kanban.model.TaskValue;
 
 import java.util.ArrayList;
+import java.util.function.IntFunction;
 
 public interface HistoryManager {
     void add(Task task);
 
+    /**
+     * Добавляет неизменяемое значение задачи. Менеджер передает сюда значение, которое уже отдал читателю,
+     * и история может хранить его без копирования.
+     */
+    default void add(TaskValue value) {
+        add(value.toTask());
+    }
+
     void remove(int id);
 
     ArrayList<Task> getHistory();
+
+    /**
+     * Источник задач по id для истории, которая хранит только id. Менеджер задач передает его при создании.
+     */
+    default void setTaskResolver(IntFunction<? extends Task> taskResolver) {
+    }
+
+    /**
+     * true, если историю можно пополнять и читать из нескольких потоков без внешней блокировки.
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
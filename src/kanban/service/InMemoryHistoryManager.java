@@ -3,96 +3,137 @@ package kanban.service;
 import kanban.model.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * История просмотров ограниченного размера: при переполнении вытесняется задача, которую дольше всех
+ * не просматривали. Просмотры хранятся в двусвязном списке на массивах: слоты освобожденных и вытесненных
+ * записей переиспользуются, поэтому повторные просмотры не создают новых узлов.
+ */
 public class InMemoryHistoryManager implements HistoryManager {
-    static class Node {
-        private Node previous;
-        private Node next;
-        private final Task task;
+    public static final int DEFAULT_CAPACITY = 10_000;
+    private static final int INITIAL_SLOTS = 16;
+    private static final int NIL = -1;
+
+    /**
+     * COPIES - в истории хранятся неизменяемые значения задач на момент просмотра, IDS - только id, а задачи
+     * берутся у менеджера при чтении истории в текущем состоянии.
+     */
+    public enum StorageMode {
+        COPIES,
+        IDS
+    }
 
-        public Node(Task task) {
-            this.task = task;
-        }
+    private final int capacity;
+    private final StorageMode storageMode;
+    private IntFunction<? extends Task> taskResolver;
+    private IntConsumer evictionListener;
+    private int[] ids;
+    private TaskValue[] values;
+    private int[] previous;
+    private int[] next;
+    private int head;
+    private int tail;
+    private int freeSlot;
+    private int usedSlots;
+    private final HashMap<Integer, Integer> slots;
 
-        public Node getPrevious() {
-            return previous;
-        }
+    public InMemoryHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
 
-        public void setPrevious(Node previous) {
-            this.previous = previous;
-        }
+    public InMemoryHistoryManager(int capacity) {
+        this(capacity, StorageMode.COPIES);
+    }
 
-        public Node getNext() {
-            return next;
+    public InMemoryHistoryManager(int capacity, StorageMode storageMode) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(String.format("Некорректный размер истории: %s", capacity));
         }
+        this.capacity = capacity;
+        this.storageMode = storageMode;
+        int initialSlots = Math.min(capacity, INITIAL_SLOTS);
+        this.ids = new int[initialSlots];
+        this.values = storageMode == StorageMode.COPIES ? new TaskValue[initialSlots] : null;
+        this.previous = new int[initialSlots];
+        this.next = new int[initialSlots];
+        this.head = NIL;
+        this.tail = NIL;
+        this.freeSlot = NIL;
+        this.slots = new HashMap<>();
+    }
 
-        public void setNext(Node next) {
-            this.next = next;
-        }
+    public int getCapacity() {
+        return capacity;
+    }
 
-        public Task getTask() {
-            return task;
-        }
+    public StorageMode getStorageMode() {
+        return storageMode;
     }
 
-    Node firstNode;
-    Node lastNode;
-    private final HashMap<Integer, Node> history;
+    @Override
+    public void setTaskResolver(IntFunction<? extends Task> taskResolver) {
+        this.taskResolver = taskResolver;
+    }
 
-    public InMemoryHistoryManager() {
-        this.history = new HashMap<>();
+    /**
+     * Получает id задачи, вытесненной из истории при переполнении.
+     */
+    void setEvictionListener(IntConsumer evictionListener) {
+        this.evictionListener = evictionListener;
     }
 
-    private Node linkLast(Task task) {
-        Node node = new Node(copy(task));
-        if (firstNode == null) {
-            firstNode = node;
-        } else {
-            lastNode.setNext(node);
-            node.setPrevious(lastNode);
+    /**
+     * Передает id всех задач истории, от давних просмотров к последним.
+     */
+    void forEachId(IntConsumer action) {
+        for (int slot = head; slot != NIL; slot = next[slot]) {
+            action.accept(ids[slot]);
         }
-        lastNode = node;
-        history.put(task.getId(), node);
-        return node;
     }
 
-    private void removeNode(Node node) {
-        if (node == null) return;
-        Node prevNode = node.getPrevious();
-        Node nextNode = node.getNext();
-        Integer taskId = node.getTask().getId();
-
-        if (prevNode == null) {
-            firstNode = nextNode;
-        } else {
-            prevNode.setNext(nextNode);
+    private int allocateSlot() {
+        if (freeSlot != NIL) {
+            int slot = freeSlot;
+            freeSlot = next[slot];
+            return slot;
         }
-        if (nextNode == null) {
-            lastNode = prevNode;
-        } else {
-            nextNode.setPrevious(prevNode);
+        if (usedSlots == ids.length) {
+            int newLength = (int) Math.min(capacity, Math.max(INITIAL_SLOTS, 2L * ids.length));
+            ids = Arrays.copyOf(ids, newLength);
+            previous = Arrays.copyOf(previous, newLength);
+            next = Arrays.copyOf(next, newLength);
+            if (values != null) values = Arrays.copyOf(values, newLength);
         }
-        history.remove(taskId);
+        return usedSlots++;
     }
 
-    private ArrayList<Task> getTasks() {
-        ArrayList<Task> tasks = new ArrayList<>();
-        Node currentNode = firstNode;
-        while (currentNode != null) {
-            tasks.add(currentNode.getTask());
-            currentNode = currentNode.getNext();
+    private void linkLast(int slot) {
+        previous[slot] = tail;
+        next[slot] = NIL;
+        if (tail == NIL) {
+            head = slot;
+        } else {
+            next[tail] = slot;
         }
-        return tasks;
+        tail = slot;
     }
 
-    private Task copy(Task task) {
-        if (task instanceof Subtask) {
-            return new Subtask((Subtask) task);
-        } else if (task instanceof Epic) {
-            return new Epic((Epic) task);
+    private void unlink(int slot) {
+        int previousSlot = previous[slot];
+        int nextSlot = next[slot];
+        if (previousSlot == NIL) {
+            head = nextSlot;
+        } else {
+            next[previousSlot] = nextSlot;
+        }
+        if (nextSlot == NIL) {
+            tail = previousSlot;
         } else {
-            return new Task(task);
+            previous[nextSlot] = previousSlot;
         }
     }
 
@@ -101,19 +142,61 @@ public class InMemoryHistoryManager implements HistoryManager {
         if (task == null) {
             return;
         }
-        remove(task.getId());
-        linkLast(task);
+        add(values != null ? TaskValue.of(task) : null, task.getId());
     }
 
     @Override
-    public void remove(int id) {
-        if (history.containsKey(id)) {
-            removeNode(history.get(id));
+    public void add(TaskValue value) {
+        if (value == null) {
+            return;
         }
+        add(value, value.id());
     }
 
+    private void add(TaskValue value, int id) {
+        Integer slot = slots.get(id);
+        if (slot != null) {
+            unlink(slot);
+        } else if (slots.size() == capacity) {
+            // вытесняется самый давний просмотр, его слот занимает новый
+            slot = head;
+            unlink(slot);
+            slots.remove(ids[slot]);
+            if (evictionListener != null) evictionListener.accept(ids[slot]);
+        } else {
+            slot = allocateSlot();
+        }
+        ids[slot] = id;
+        if (values != null) values[slot] = value;
+        slots.put(id, slot);
+        linkLast(slot);
+    }
+
+    @Override
+    public void remove(int id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) return;
+        unlink(slot);
+        if (values != null) values[slot] = null;
+        next[slot] = freeSlot;
+        freeSlot = slot;
+    }
+
+    /**
+     * Задачи истории от давних просмотров к последним. Каждая задача - новая изменяемая копия.
+     */
     @Override
     public ArrayList<Task> getHistory() {
-        return getTasks();
+        if (storageMode == StorageMode.IDS && taskResolver == null) {
+            throw new IllegalStateException("Для истории из id не задан источник задач.");
+        }
+        ArrayList<Task> history = new ArrayList<>(slots.size());
+        for (int slot = head; slot != NIL; slot = next[slot]) {
+            Task task = values != null ? values[slot].toTask() : taskResolver.apply(ids[slot]);
+            if (task != null) {
+                history.add(task);
+            }
+        }
+        return history;
     }
 }
@@ -3,93 +3,160 @@ package kanban.service;
 import kanban.exception.NotFoundException;
 import kanban.exception.TasksIntersectedException;
 import kanban.model.Epic;
+import kanban.model.EpicRecord;
+import kanban.model.Operation;
 import kanban.model.Subtask;
+import kanban.model.SubtaskRecord;
 import kanban.model.Task;
-import kanban.model.TaskStatus;
+import kanban.model.TaskTypes;
+import kanban.model.TaskValue;
+import kanban.model.TimeSlot;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 public class InMemoryTaskManager implements TaskManager {
+    // как и в HashMap, поиск по id null просто ничего не находит, а не бросает NullPointerException
+    private static final Comparator<Integer> ID_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
     protected Integer idCounter;
-    protected final HashMap<Integer, Task> tasks;
-    protected final HashMap<Integer, Subtask> subtasks;
-    protected final HashMap<Integer, Epic> epics;
+    protected final TreeMap<Integer, Task> tasks;
+    protected final TreeMap<Integer, Subtask> subtasks;
+    protected final TreeMap<Integer, Epic> epics;
     private final HistoryManager historyManager;
-    private final TreeSet<Task> sortedTasks;
+    private final ScheduleIndex sortedTasks;
+    private final TimeIntervalIndex timeIntervalIndex;
+    private final HashMap<Integer, EpicAggregate> epicAggregates;
+    private long revision;
+    private Instant lastModified;
+    // во время пакетного изменения: отложенные удаления из истории и эпики для пересчета
+    private List<Integer> pendingHistoryRemovals;
+    private Set<Integer> pendingEpicRecalculations;
+    private UndoLog undoLog;
+    // неизменяемые списки для чтения: строятся при первом чтении после изменения и отдаются всем читателям
+    private volatile List<Task> tasksView;
+    private volatile List<Subtask> subtasksView;
+    private volatile List<Epic> epicsView;
+    private volatile List<Task> prioritizedView;
+    // неизменяемые значения задач, прочитанных по id: общие для всех чтений и истории до изменения этой задачи
+    private final ConcurrentHashMap<Integer, TaskValue> readValues;
 
     public InMemoryTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
         idCounter = 0;
-        tasks = new HashMap<>();
-        subtasks = new HashMap<>();
-        epics = new HashMap<>();
-        historyManager = Managers.getDefaultHistory();
-        sortedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
-    }
-
-    private void calculateEpicFields(Epic epic) {
-        if (epic.getSubtasks().isEmpty()) {
-            epic.setStatus(TaskStatus.NEW);
-            epic.setStartTime(null);
-            epic.setEndTime(null);
-            epic.setDuration(null);
+        tasks = new TreeMap<>(ID_ORDER);
+        subtasks = new TreeMap<>(ID_ORDER);
+        epics = new TreeMap<>(ID_ORDER);
+        this.historyManager = historyManager;
+        historyManager.setTaskResolver(this::findForHistory);
+        sortedTasks = new ScheduleIndex();
+        timeIntervalIndex = new TimeIntervalIndex();
+        epicAggregates = new HashMap<>();
+        readValues = new ConcurrentHashMap<>();
+        revision = 0;
+        lastModified = Instant.now();
+    }
+
+    /**
+     * Отмечает изменение данных менеджера: увеличивает ревизию и запоминает время изменения.
+     */
+    protected void markModified() {
+        invalidateListViews();
+        revision++;
+        lastModified = Instant.now();
+    }
+
+    /**
+     * Сбрасывает списки для чтения и все значения задач, прочитанных по id. Вызывается после прямой загрузки
+     * данных в обход методов менеджера.
+     */
+    protected void invalidateViews() {
+        invalidateListViews();
+        readValues.clear();
+    }
+
+    private void invalidateListViews() {
+        tasksView = null;
+        subtasksView = null;
+        epicsView = null;
+        prioritizedView = null;
+    }
+
+    /**
+     * Вызывается перед изменением записи id: убирает из кэша только ее значение для чтения по id, а во время
+     * пакета еще и запоминает прежнее состояние записи для отката.
+     */
+    private void touch(TaskTypes type, Integer id) {
+        readValues.remove(id);
+        recordUndo(type, id);
+    }
+
+    /**
+     * Строит неизменяемый список для чтения. Задачи в нем те же, что хранит менеджер, как и раньше в копиях списков.
+     */
+    protected <T extends Task> List<T> createView(Collection<T> values) {
+        return List.copyOf(values);
+    }
+
+    @Override
+    public long getRevision() {
+        return revision;
+    }
+
+    @Override
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    private EpicAggregate getEpicAggregate(Integer epicId) {
+        return epicAggregates.computeIfAbsent(epicId, id -> new EpicAggregate());
+    }
+
+    protected void calculateEpicFields(Epic epic) {
+        if (pendingEpicRecalculations != null) {
+            pendingEpicRecalculations.add(epic.getId());
             return;
         }
+        getEpicAggregate(epic.getId()).applyTo(epic);
+        readValues.remove(epic.getId());
+    }
 
-        TaskStatus calculatedStatus = null;
-        for (Integer id : epic.getSubtasks()) {
-            TaskStatus status = subtasks.get(id).getStatus();
-            if (status == TaskStatus.IN_PROGRESS) {
-                calculatedStatus = TaskStatus.IN_PROGRESS;
-                break;
-            } else if (calculatedStatus == null) {
-                calculatedStatus = status;
-            } else if (calculatedStatus != status) {
-                calculatedStatus = TaskStatus.IN_PROGRESS;
-                break;
-            }
-        }
-        epic.setStatus(calculatedStatus);
-
-        epic.setStartTime(epic.getSubtasks().stream()
-                .map(id -> Optional.ofNullable(subtasks.get(id).getStartTime()))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .min(Comparator.naturalOrder())
-                .orElse(null)
-        );
-
-        epic.setDuration(epic.getSubtasks().stream()
-                .map(id -> Optional.ofNullable(subtasks.get(id).getDuration()))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .reduce(Duration::plus)
-                .orElse(null)
-        );
-
-        epic.setEndTime(epic.getSubtasks().stream()
-                .map(id -> Optional.ofNullable(subtasks.get(id).getEndTime()))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .max(Comparator.naturalOrder())
-                .orElse(null)
-        );
-
-    }
-
-    private boolean areTasksIntersected(Task t1, Task t2) {
-        if (t1.getStartTime() == null || t2.getStartTime() == null || t1.getEndTime() == null || t2.getEndTime() == null) {
-            return false;
-        } else {
-            return t1.getEndTime().isAfter(t2.getStartTime()) && t1.getStartTime().isBefore(t2.getEndTime());
+    private void removeFromHistory(int id) {
+        if (pendingHistoryRemovals != null) {
+            pendingHistoryRemovals.add(id);
+            return;
         }
+        historyManager.remove(id);
+    }
+
+    protected void linkSubtaskToEpic(Subtask subtask, Epic epic) {
+        touch(TaskTypes.EPIC, epic.getId());
+        epic.addSubtask(subtask.getId());
+        getEpicAggregate(epic.getId()).add(subtask);
+        calculateEpicFields(epic);
+    }
+
+    protected void unlinkSubtaskFromEpic(Subtask subtask, Epic epic) {
+        touch(TaskTypes.EPIC, epic.getId());
+        epic.removeSubtask(subtask.getId());
+        getEpicAggregate(epic.getId()).remove(subtask);
+        calculateEpicFields(epic);
     }
 
-    private void checkForIntersections(Task task) {
-        if (getPrioritizedTasks().stream()
-                .filter(task2 -> !task2.equals(task))
-                .anyMatch(task2 -> areTasksIntersected(task, task2))) {
+    /**
+     * Проверяет пересечения добавляемой (replacedId == null) или обновляемой задачи. Интервал исключается
+     * только у заменяемой задачи: id добавляемой задачи ничего не значит и может совпасть с чужим.
+     */
+    private void checkForIntersections(Task task, Integer replacedId) {
+        if (timeIntervalIndex.hasIntersections(task, replacedId)) {
             throw new TasksIntersectedException("Задача пересекается с другими задачами в менеджере.");
         }
     }
@@ -97,95 +164,177 @@ public class InMemoryTaskManager implements TaskManager {
     protected void addToSortedTasks(Task task) {
         if (task.getStartTime() != null) {
             sortedTasks.add(task);
+            timeIntervalIndex.add(task);
         }
     }
 
+    /**
+     * Индексы удаляют записи задачи по id, поэтому задачу можно передать и после изменения ее полей.
+     */
     protected void removeFromSortedTasks(Task task) {
-        if (task.getStartTime() != null) {
-            sortedTasks.remove(task);
+        sortedTasks.remove(task);
+        timeIntervalIndex.remove(task);
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        List<Task> view = tasksView;
+        if (view == null) {
+            view = createView(tasks.values());
+            tasksView = view;
         }
+        return view;
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        List<Subtask> view = subtasksView;
+        if (view == null) {
+            view = createView(subtasks.values());
+            subtasksView = view;
+        }
+        return view;
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        List<Epic> view = epicsView;
+        if (view == null) {
+            view = createView(epics.values());
+            epicsView = view;
+        }
+        return view;
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException(String.format("Некорректный размер страницы: %s", limit));
+        }
+    }
+
+    private static <T extends Task> ArrayList<T> getPage(NavigableMap<Integer, T> source, Integer afterId, int limit) {
+        checkLimit(limit);
+        Collection<T> values = afterId == null ? source.values() : source.tailMap(afterId, false).values();
+        return values.stream()
+                .limit(limit)
+                .collect(Collectors.toCollection(ArrayList::new));
     }
 
     @Override
-    public ArrayList<Task> getTasks() {
-        return new ArrayList<>(tasks.values());
+    public ArrayList<Task> getTasks(Integer afterId, int limit) {
+        return getPage(tasks, afterId, limit);
     }
 
     @Override
-    public ArrayList<Subtask> getSubtasks() {
-        return new ArrayList<>(subtasks.values());
+    public ArrayList<Subtask> getSubtasks(Integer afterId, int limit) {
+        return getPage(subtasks, afterId, limit);
     }
 
     @Override
-    public ArrayList<Epic> getEpics() {
-        return new ArrayList<>(epics.values());
+    public ArrayList<Epic> getEpics(Integer afterId, int limit) {
+        return getPage(epics, afterId, limit);
     }
 
-    private void clearHistory(HashMap<Integer, ? extends Task> tasksToRemove) {
+    private void clearHistory(Map<Integer, ? extends Task> tasksToRemove) {
         for (Integer id : tasksToRemove.keySet()) {
-            historyManager.remove(id);
+            removeFromHistory(id);
         }
     }
 
     @Override
     public void deleteAllTasks() {
         clearHistory(tasks);
+        tasks.keySet().forEach(readValues::remove);
         tasks.values().forEach(this::removeFromSortedTasks);
         tasks.clear();
+        markModified();
     }
 
     @Override
     public void deleteAllSubtasks() {
+        // меняются все эпики и удаляются все подзадачи: сбросить весь кэш дешевле, чем по одному id
+        readValues.clear();
         for (Epic epic : epics.values()) {
-            epic.getSubtasks().clear();
+            epic.clearSubtasks();
+            getEpicAggregate(epic.getId()).clear();
             calculateEpicFields(epic);
         }
         clearHistory(subtasks);
         subtasks.values().forEach(this::removeFromSortedTasks);
         subtasks.clear();
+        markModified();
     }
 
     @Override
     public void deleteAllEpics() {
+        readValues.clear();
         clearHistory(subtasks);
         subtasks.values().forEach(this::removeFromSortedTasks);
         subtasks.clear();
         clearHistory(epics);
         epics.clear();
+        epicAggregates.clear();
+        markModified();
+    }
+
+    /**
+     * Возвращает неизменяемое значение хранимой задачи. Значение строится один раз и переиспользуется, пока
+     * не изменится сама задача (см. touch); в историю попадает тот же экземпляр, а читатель получает
+     * изменяемую копию.
+     */
+    private TaskValue getReadValue(Task task) {
+        TaskValue value = readValues.get(task.getId());
+        return value != null ? value : readValues.computeIfAbsent(task.getId(), id -> TaskValue.of(task));
+    }
+
+    /**
+     * Задача в текущем состоянии для истории, хранящей только id. История читается и под блокировкой чтения,
+     * поэтому общий кэш значений здесь не используется.
+     */
+    private Task findForHistory(int id) {
+        Task task = tasks.get(id);
+        if (task == null) task = subtasks.get(id);
+        if (task == null) task = epics.get(id);
+        return task == null ? null : TaskValue.of(task).toTask();
     }
 
     @Override
     public Task getTask(Integer id) {
-        if (!tasks.containsKey(id)) throw new NotFoundException(String.format("Нет таска с id: %s", id));
-        Task task = tasks.get(id);
-        historyManager.add(task);
-        return new Task(task);
+        Task stored = tasks.get(id);
+        if (stored == null) throw new NotFoundException(String.format("Нет таска с id: %s", id));
+        TaskValue value = getReadValue(stored);
+        historyManager.add(value);
+        return value.toTask();
     }
 
     @Override
     public Subtask getSubtask(Integer id) {
-        if (!subtasks.containsKey(id)) throw new NotFoundException(String.format("Нет сабтаска с id: %s", id));
-        Subtask subtask = subtasks.get(id);
-        historyManager.add(subtask);
-        return new Subtask(subtask);
+        Subtask stored = subtasks.get(id);
+        if (stored == null) throw new NotFoundException(String.format("Нет сабтаска с id: %s", id));
+        SubtaskRecord value = (SubtaskRecord) getReadValue(stored);
+        historyManager.add(value);
+        return value.toTask();
     }
 
     @Override
     public Epic getEpic(Integer id) {
-        if (!epics.containsKey(id)) throw new NotFoundException(String.format("Нет эпика с id: %s", id));
-        Epic epic = epics.get(id);
-        historyManager.add(epic);
-        return new Epic(epic);
+        Epic stored = epics.get(id);
+        if (stored == null) throw new NotFoundException(String.format("Нет эпика с id: %s", id));
+        EpicRecord value = (EpicRecord) getReadValue(stored);
+        historyManager.add(value);
+        return value.toTask();
     }
 
     @Override
     public Task addTask(Task task) {
         if (task == null) return null;
-        checkForIntersections(task);
+        checkForIntersections(task, null);
 
         task.setId(++idCounter);
+        touch(TaskTypes.TASK, idCounter);
         tasks.put(idCounter, task);
         addToSortedTasks(task);
+        markModified();
         return task;
     }
 
@@ -194,13 +343,14 @@ public class InMemoryTaskManager implements TaskManager {
         if (subtask == null) return null;
         Epic epic = epics.get(subtask.epic);
         if (epic == null) return null;
-        checkForIntersections(subtask);
+        checkForIntersections(subtask, null);
 
         subtask.setId(++idCounter);
+        touch(TaskTypes.SUBTASK, idCounter);
         subtasks.put(idCounter, subtask);
-        epic.getSubtasks().add(subtask.getId());
-        calculateEpicFields(epic);
+        linkSubtaskToEpic(subtask, epic);
         addToSortedTasks(subtask);
+        markModified();
         return subtask;
     }
 
@@ -208,10 +358,13 @@ public class InMemoryTaskManager implements TaskManager {
     public Epic addEpic(Epic epic) {
         if (epic == null) return null;
         if (!epic.getSubtasks().isEmpty()) {
-            epic.getSubtasks().clear();
+            epic.clearSubtasks();
         }
         epic.setId(++idCounter);
+        touch(TaskTypes.EPIC, idCounter);
         epics.put(idCounter, epic);
+        epicAggregates.put(idCounter, new EpicAggregate());
+        markModified();
         return epic;
     }
 
@@ -220,11 +373,13 @@ public class InMemoryTaskManager implements TaskManager {
         if (task == null) return null;
         Task oldTask = tasks.get(task.getId());
         if (oldTask == null) throw new NotFoundException(String.format("Нет таска с id: %s", task.getId()));
-        checkForIntersections(task);
+        checkForIntersections(task, task.getId());
 
+        touch(TaskTypes.TASK, task.getId());
         tasks.put(task.getId(), task);
         removeFromSortedTasks(oldTask);
         addToSortedTasks(task);
+        markModified();
         return task;
     }
 
@@ -237,19 +392,23 @@ public class InMemoryTaskManager implements TaskManager {
         Epic epic = epics.get(subtask.epic);
         if (epic == null) throw new NotFoundException(String.format("Нет эпика с id: %s", subtask.epic));
         if (subtask.getId().equals(subtask.epic)) return null;
-        checkForIntersections(subtask);
+        checkForIntersections(subtask, subtask.getId());
 
+        touch(TaskTypes.SUBTASK, subtask.getId());
         // У подзадачи мог измениться эпик. В этом случае требуются дополнительные действия.
         if (!subtask.epic.equals(oldSubtask.epic)) {
-            Epic oldEpic = epics.get(oldSubtask.epic);
-            oldEpic.getSubtasks().remove(oldSubtask.getId());
-            calculateEpicFields(oldEpic);
-            epic.getSubtasks().add(subtask.getId());
+            unlinkSubtaskFromEpic(oldSubtask, epics.get(oldSubtask.epic));
+            linkSubtaskToEpic(subtask, epic);
+        } else {
+            EpicAggregate epicAggregate = getEpicAggregate(epic.getId());
+            epicAggregate.remove(oldSubtask);
+            epicAggregate.add(subtask);
+            calculateEpicFields(epic);
         }
         subtasks.put(subtask.getId(), subtask);
-        calculateEpicFields(epic);
         removeFromSortedTasks(oldSubtask);
         addToSortedTasks(subtask);
+        markModified();
         return subtask;
     }
 
@@ -259,43 +418,241 @@ public class InMemoryTaskManager implements TaskManager {
         Epic oldEpic = epics.get(epic.getId());
         if (oldEpic == null) throw new NotFoundException(String.format("Нет эпика с id: %s", epic.getId()));
 
+        touch(TaskTypes.EPIC, epic.getId());
         // Перенесем список привязанных подзадач в новый инстанс эпика.
-        epic.setSubtasks(epics.get(epic.getId()).getSubtasks());
+        epic.copySubtasksFrom(oldEpic);
         epics.put(epic.getId(), epic);
         calculateEpicFields(epic);
+        markModified();
         return epic;
     }
 
     @Override
     public void deleteTask(Integer id) {
         if (!tasks.containsKey(id)) throw new NotFoundException(String.format("Нет таска с id: %s", id));
+        touch(TaskTypes.TASK, id);
         removeFromSortedTasks(tasks.get(id));
         tasks.remove(id);
-        historyManager.remove(id);
+        removeFromHistory(id);
+        markModified();
     }
 
     @Override
     public void deleteSubtask(Integer id) {
         if (!subtasks.containsKey(id)) throw new NotFoundException(String.format("Нет сабтаска с id: %s", id));
         Subtask subtask = subtasks.get(id);
+        touch(TaskTypes.SUBTASK, id);
         removeFromSortedTasks(subtask);
-        Epic epic = epics.get(subtask.epic);
-        epic.getSubtasks().remove(id);
+        unlinkSubtaskFromEpic(subtask, epics.get(subtask.epic));
         subtasks.remove(id);
-        calculateEpicFields(epic);
-        historyManager.remove(id);
+        removeFromHistory(id);
+        markModified();
     }
 
     @Override
     public void deleteEpic(Integer id) {
         if (!epics.containsKey(id)) throw new NotFoundException(String.format("Нет эпика с id: %s", id));
+        touch(TaskTypes.EPIC, id);
         for (Integer subtaskId : epics.get(id).getSubtasks()) {
+            touch(TaskTypes.SUBTASK, subtaskId);
             removeFromSortedTasks(subtasks.get(subtaskId));
             subtasks.remove(subtaskId);
-            historyManager.remove(subtaskId);
+            removeFromHistory(subtaskId);
         }
         epics.remove(id);
-        historyManager.remove(id);
+        epicAggregates.remove(id);
+        removeFromHistory(id);
+        markModified();
+    }
+
+    /**
+     * Журнал отмены пакетного изменения: для каждого id, который затрагивает пакет, при первом изменении
+     * запоминается прежняя запись (null, если id в пакете создан). Для эпиков, которые меняются на месте,
+     * дополнительно запоминается список подзадач. Откат стоит O(размер пакета), а не O(всех задач).
+     */
+    private static class UndoLog {
+        private final Integer idCounter;
+        private final LinkedHashMap<Integer, UndoEntry> entries;
+
+        UndoLog(Integer idCounter) {
+            this.idCounter = idCounter;
+            this.entries = new LinkedHashMap<>();
+        }
+    }
+
+    private record UndoEntry(TaskTypes type, Task previous, List<Integer> epicSubtasks) {
+    }
+
+    /**
+     * Запоминает прежнее состояние записи перед ее изменением внутри пакета. Вне пакета ничего не делает.
+     */
+    private void recordUndo(TaskTypes type, Integer id) {
+        if (undoLog == null || undoLog.entries.containsKey(id)) return;
+        Task previous = switch (type) {
+            case TASK -> tasks.get(id);
+            case SUBTASK -> subtasks.get(id);
+            case EPIC -> epics.get(id);
+        };
+        List<Integer> epicSubtasks = previous instanceof Epic epic ? new ArrayList<>(epic.getSubtasks()) : null;
+        undoLog.entries.put(id, new UndoEntry(type, previous, epicSubtasks));
+    }
+
+    /**
+     * Возвращает затронутые пакетом записи и их индексы к состоянию до пакета. Сначала из индексов убирается
+     * текущее состояние задач и подзадач, затем восстанавливаются эпики (вместе с агрегатами удаленных),
+     * и только потом прежние задачи и подзадачи возвращаются в карты, индексы и агрегаты эпиков.
+     */
+    private void rollback(UndoLog log) {
+        idCounter = log.idCounter;
+        log.entries.keySet().forEach(readValues::remove);
+        for (Map.Entry<Integer, UndoEntry> entry : log.entries.entrySet()) {
+            TaskTypes type = entry.getValue().type();
+            if (type == TaskTypes.EPIC) continue;
+            Task current = type == TaskTypes.TASK ? tasks.remove(entry.getKey()) : subtasks.remove(entry.getKey());
+            if (current == null) continue;
+            removeFromSortedTasks(current);
+            if (current instanceof Subtask subtask) {
+                EpicAggregate epicAggregate = epicAggregates.get(subtask.epic);
+                if (epicAggregate != null) epicAggregate.remove(subtask);
+            }
+        }
+        for (Map.Entry<Integer, UndoEntry> entry : log.entries.entrySet()) {
+            UndoEntry undo = entry.getValue();
+            if (undo.type() != TaskTypes.EPIC) continue;
+            if (undo.previous() == null) {
+                epics.remove(entry.getKey());
+                epicAggregates.remove(entry.getKey());
+                continue;
+            }
+            Epic epic = (Epic) undo.previous();
+            epic.setSubtasks(undo.epicSubtasks());
+            epics.put(entry.getKey(), epic);
+            epicAggregates.putIfAbsent(entry.getKey(), new EpicAggregate());
+        }
+        for (UndoEntry undo : log.entries.values()) {
+            if (undo.type() == TaskTypes.EPIC || undo.previous() == null) continue;
+            Task task = undo.previous();
+            if (task instanceof Subtask subtask) {
+                subtasks.put(subtask.getId(), subtask);
+                getEpicAggregate(subtask.epic).add(subtask);
+            } else {
+                tasks.put(task.getId(), task);
+            }
+            addToSortedTasks(task);
+        }
+    }
+
+    static Subtask withEpic(Subtask subtask, Integer epicId) {
+        Subtask resolved = new Subtask(subtask.getName(), subtask.getDescription(), epicId, subtask.getStartTime(),
+                subtask.getDuration());
+        if (subtask.getId() != null) resolved.setId(subtask.getId());
+        resolved.setStatus(subtask.getStatus());
+        return resolved;
+    }
+
+    private Subtask resolveEpicReference(Subtask subtask, List<Task> results) {
+        if (subtask.epic == null || subtask.epic >= 0) return subtask;
+        int index = -subtask.epic - 1;
+        if (index >= results.size() || results.get(index) == null) {
+            throw new IllegalArgumentException(String.format("Некорректная ссылка на операцию пакета: %s",
+                    subtask.epic));
+        }
+        return withEpic(subtask, results.get(index).getId());
+    }
+
+    private static <T extends Task> T requireAdded(T result, Operation operation) {
+        if (result == null) {
+            throw new NotFoundException(String.format("Операция не выполнена: %s", operation));
+        }
+        return result;
+    }
+
+    private Task applyOperation(Operation operation, List<Task> results) {
+        if (operation.getType() == null || operation.getTaskType() == null) {
+            throw new IllegalArgumentException(String.format("Некорректная операция: %s", operation));
+        }
+        if (operation.getType() != Operation.Type.DELETE && operation.getTask() == null) {
+            throw new IllegalArgumentException(String.format("В операции нет задачи: %s", operation));
+        }
+        Task task = operation.getTask();
+        return switch (operation.getType()) {
+            case ADD -> switch (operation.getTaskType()) {
+                case TASK -> requireAdded(addTask(task), operation);
+                case SUBTASK -> requireAdded(addSubtask(resolveEpicReference((Subtask) task, results)), operation);
+                case EPIC -> requireAdded(addEpic((Epic) task), operation);
+            };
+            case UPDATE -> switch (operation.getTaskType()) {
+                case TASK -> updateTask(task);
+                case SUBTASK -> updateSubtask(resolveEpicReference((Subtask) task, results));
+                case EPIC -> updateEpic((Epic) task);
+            };
+            case DELETE -> {
+                switch (operation.getTaskType()) {
+                    case TASK -> deleteTask(operation.getId());
+                    case SUBTASK -> deleteSubtask(operation.getId());
+                    case EPIC -> deleteEpic(operation.getId());
+                }
+                yield null;
+            }
+        };
+    }
+
+    /**
+     * Применяет операции по порядку как одно изменение: при первой ошибке состояние возвращается к исходному,
+     * а исключение пробрасывается дальше. Расчетные поля эпиков пересчитываются один раз в конце,
+     * удаления из истории применяются только после успеха.
+     */
+    @Override
+    public List<Task> applyBatch(List<Operation> operations) {
+        UndoLog log = new UndoLog(idCounter);
+        undoLog = log;
+        pendingHistoryRemovals = new ArrayList<>();
+        pendingEpicRecalculations = new HashSet<>();
+        List<Task> results = new ArrayList<>(operations.size());
+        try {
+            for (Operation operation : operations) {
+                results.add(applyOperation(operation, results));
+            }
+        } catch (RuntimeException exception) {
+            undoLog = null;
+            pendingHistoryRemovals = null;
+            pendingEpicRecalculations = null;
+            rollback(log);
+            markModified();
+            throw exception;
+        }
+        undoLog = null;
+
+        List<Integer> historyRemovals = pendingHistoryRemovals;
+        Set<Integer> epicRecalculations = pendingEpicRecalculations;
+        pendingHistoryRemovals = null;
+        pendingEpicRecalculations = null;
+        historyRemovals.forEach(historyManager::remove);
+        for (Integer epicId : epicRecalculations) {
+            Epic epic = epics.get(epicId);
+            if (epic != null) {
+                calculateEpicFields(epic);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public int importTasks(Iterator<? extends Task> source, int batchSize, IntConsumer progress) {
+        TaskImport taskImport = new TaskImport(source, batchSize);
+        for (List<Operation> batch = taskImport.nextBatch(); !batch.isEmpty(); batch = taskImport.nextBatch()) {
+            progress.accept(taskImport.commit(applyBatch(batch)));
+        }
+        return taskImport.getImported();
+    }
+
+    /**
+     * Чтение по id меняет только кэш значений (потокобезопасный) и историю, поэтому параллельно оно допустимо,
+     * если потокобезопасна история.
+     */
+    @Override
+    public boolean supportsConcurrentReads() {
+        return historyManager.isThreadSafe();
     }
 
     @Override
@@ -312,8 +669,70 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
+    @Override
+    public ArrayList<Task> getHistory(Integer afterId, int limit) {
+        checkLimit(limit);
+        ArrayList<Task> history = historyManager.getHistory();
+        int from = 0;
+        if (afterId != null) {
+            from = history.size();
+            for (int i = 0; i < history.size(); i++) {
+                if (history.get(i).getId().equals(afterId)) {
+                    from = i + 1;
+                    break;
+                }
+            }
+        }
+        return new ArrayList<>(history.subList(from, (int) Math.min(history.size(), (long) from + limit)));
+    }
+
     @Override
     public List<Task> getPrioritizedTasks() {
-        return new LinkedList<>(sortedTasks);
+        List<Task> view = prioritizedView;
+        if (view == null) {
+            view = createView(sortedTasks.tasks());
+            prioritizedView = view;
+        }
+        return view;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime after, int limit) {
+        checkLimit(limit);
+        // строго позже after - значит, не раньше следующей наносекунды
+        return firstOf(sortedTasks.range(after == null ? null : after.plusNanos(1), null), limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        checkLimit(limit);
+        return firstOf(sortedTasks.range(from, to), limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, ScheduleIndex.Key after, int limit) {
+        checkLimit(limit);
+        return firstOf(sortedTasks.range(from, to, after), limit);
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit) {
+        checkLimit(limit);
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException(String.format("Некорректная длительность: %s", duration));
+        }
+        if (from == null) {
+            throw new IllegalArgumentException("Не задано начало поиска свободного времени.");
+        }
+        return timeIntervalIndex.findFreeSlots(duration, from, to, limit);
+    }
+
+    private static ArrayList<Task> firstOf(Collection<Task> range, int limit) {
+        ArrayList<Task> page = new ArrayList<>(Math.min(limit, 64));
+        Iterator<Task> iterator = range.iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
     }
 }
@@ -4,10 +4,22 @@ import java.io.File;
 
 public final class Managers {
     public static TaskManager getDefault() {
-        return FileBackedTaskManager.loadFromFile(new File("resources/task.csv"));
+        return getDefault(FileBackedTaskManager.SnapshotFormat.CSV);
+    }
+
+    public static TaskManager getDefault(FileBackedTaskManager.SnapshotFormat snapshotFormat) {
+        return switch (snapshotFormat) {
+            case CSV -> FileBackedTaskManager.loadFromFile(new File("resources/task.csv"));
+            case BINARY -> FileBackedTaskManager.loadFromFile(new File("resources/task.bin"),
+                    FileBackedTaskManager.PersistenceMode.SNAPSHOT, FileBackedTaskManager.SnapshotFormat.BINARY);
+        };
     }
 
     public static HistoryManager getDefaultHistory() {
-        return new InMemoryHistoryManager();
+        return getDefaultHistory(AsyncHistoryManager.Recording.ASYNC);
+    }
+
+    public static HistoryManager getDefaultHistory(AsyncHistoryManager.Recording recording) {
+        return new AsyncHistoryManager(new PartitionedHistoryManager(), recording);
     }
 }
@@ -0,0 +1,259 @@
+package kanban.service;
+
+import kanban.model.Task;
+import kanban.model.TaskValue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * История просмотров, разделенная по клиентам. Клиент текущего потока задается через setCurrentClient
+ * (HTTP-сервер берет его из заголовка запроса); без клиента используется общий раздел DEFAULT_CLIENT.
+ * Каждый раздел - отдельная ограниченная InMemoryHistoryManager со своей блокировкой, поэтому просмотры
+ * разных клиентов не конкурируют. Разделы, к которым не обращались дольше idleTimeout, удаляются.
+ * Число разделов ограничено maxPartitions: раздел нового клиента сверх лимита вытесняет раздел, к которому
+ * дольше всех не обращались (общий раздел не вытесняется).
+ * <p>
+ * Для каждого id хранится набор разделов, в истории которых он есть, поэтому удаление задачи обходит
+ * только эти разделы, а не все.
+ */
+public class PartitionedHistoryManager implements HistoryManager {
+    public static final String DEFAULT_CLIENT = "";
+    public static final int DEFAULT_PARTITION_CAPACITY = 1_000;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    public static final int DEFAULT_MAX_PARTITIONS = 1_000;
+
+    private static final ThreadLocal<String> CURRENT_CLIENT = new ThreadLocal<>();
+
+    private static class Partition {
+        private final InMemoryHistoryManager history;
+        private volatile long lastAccess;
+        // выставляется под блокировкой раздела, когда раздел удален из менеджера
+        private boolean evicted;
+
+        Partition(InMemoryHistoryManager history) {
+            this.history = history;
+            this.lastAccess = System.nanoTime();
+        }
+    }
+
+    private final int partitionCapacity;
+    private final InMemoryHistoryManager.StorageMode storageMode;
+    private final ConcurrentHashMap<String, Partition> partitions;
+    // id задачи -> разделы, в истории которых она есть; наборы меняются только внутри compute
+    private final ConcurrentHashMap<Integer, Set<Partition>> partitionsById;
+    private volatile IntFunction<? extends Task> taskResolver;
+    private volatile long idleTimeoutNanos;
+    private volatile int maxPartitions;
+    private volatile long lastEviction;
+
+    public PartitionedHistoryManager() {
+        this(DEFAULT_PARTITION_CAPACITY, InMemoryHistoryManager.StorageMode.COPIES);
+    }
+
+    public PartitionedHistoryManager(int partitionCapacity, InMemoryHistoryManager.StorageMode storageMode) {
+        if (partitionCapacity < 1) {
+            throw new IllegalArgumentException(String.format("Некорректный размер истории: %s", partitionCapacity));
+        }
+        this.partitionCapacity = partitionCapacity;
+        this.storageMode = storageMode;
+        this.partitions = new ConcurrentHashMap<>();
+        this.partitionsById = new ConcurrentHashMap<>();
+        this.maxPartitions = DEFAULT_MAX_PARTITIONS;
+        this.idleTimeoutNanos = DEFAULT_IDLE_TIMEOUT.toNanos();
+        this.lastEviction = System.nanoTime();
+    }
+
+    /**
+     * Задает клиента текущего потока (null - общий раздел) и возвращает предыдущего, чтобы его можно было
+     * восстановить после обработки запроса.
+     */
+    public static String setCurrentClient(String client) {
+        String previous = CURRENT_CLIENT.get();
+        if (client == null) {
+            CURRENT_CLIENT.remove();
+        } else {
+            CURRENT_CLIENT.set(client);
+        }
+        return previous;
+    }
+
+    public static String getCurrentClient() {
+        String client = CURRENT_CLIENT.get();
+        return client == null ? DEFAULT_CLIENT : client;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Время простоя раздела истории должно быть положительным.");
+        }
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    public void setMaxPartitions(int maxPartitions) {
+        if (maxPartitions < 1) {
+            throw new IllegalArgumentException(String.format("Некорректное число разделов истории: %s", maxPartitions));
+        }
+        this.maxPartitions = maxPartitions;
+    }
+
+    public int getPartitionsCount() {
+        return partitions.size();
+    }
+
+    @Override
+    public void setTaskResolver(IntFunction<? extends Task> taskResolver) {
+        this.taskResolver = taskResolver;
+        partitions.values().forEach(partition -> {
+            synchronized (partition) {
+                partition.history.setTaskResolver(taskResolver);
+            }
+        });
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    /**
+     * Удаляет простаивающие разделы, кроме общего. Проход по разделам выполняется не чаще, чем раз
+     * в половину idleTimeout.
+     */
+    private void evictIdlePartitions(long now) {
+        long timeout = idleTimeoutNanos;
+        if (now - lastEviction < timeout / 2) return;
+        lastEviction = now;
+        Iterator<Map.Entry<String, Partition>> iterator = partitions.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Partition> entry = iterator.next();
+            if (!entry.getKey().equals(DEFAULT_CLIENT) && now - entry.getValue().lastAccess > timeout) {
+                iterator.remove();
+                detach(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Пока разделов больше maxPartitions, удаляет раздел, к которому дольше всех не обращались, кроме общего
+     * и только что созданного. Вызывается только при создании раздела, поэтому проход по разделам не влияет
+     * на обращения уже известных клиентов.
+     */
+    private void evictLeastRecentlyUsedPartitions(String createdClient) {
+        while (partitions.size() > maxPartitions) {
+            Map.Entry<String, Partition> oldest = null;
+            for (Map.Entry<String, Partition> entry : partitions.entrySet()) {
+                String client = entry.getKey();
+                if (client.equals(DEFAULT_CLIENT) || client.equals(createdClient)) continue;
+                if (oldest == null || entry.getValue().lastAccess < oldest.getValue().lastAccess) {
+                    oldest = entry;
+                }
+            }
+            if (oldest == null) return;
+            if (partitions.remove(oldest.getKey(), oldest.getValue())) {
+                detach(oldest.getValue());
+            }
+        }
+    }
+
+    /**
+     * Убирает удаленный из менеджера раздел из индекса id.
+     */
+    private void detach(Partition partition) {
+        synchronized (partition) {
+            partition.evicted = true;
+            partition.history.forEachId(id -> unindex(id, partition));
+        }
+    }
+
+    private void unindex(int id, Partition partition) {
+        partitionsById.computeIfPresent(id, (key, owners) -> {
+            owners.remove(partition);
+            return owners.isEmpty() ? null : owners;
+        });
+    }
+
+    private Partition getPartition() {
+        long now = System.nanoTime();
+        evictIdlePartitions(now);
+        String currentClient = getCurrentClient();
+        Partition partition = partitions.get(currentClient);
+        if (partition == null) {
+            partition = partitions.computeIfAbsent(currentClient, client -> {
+                InMemoryHistoryManager history = new InMemoryHistoryManager(partitionCapacity, storageMode);
+                history.setTaskResolver(taskResolver);
+                Partition created = new Partition(history);
+                history.setEvictionListener(id -> unindex(id, created));
+                return created;
+            });
+            evictLeastRecentlyUsedPartitions(currentClient);
+        }
+        partition.lastAccess = now;
+        return partition;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) return;
+        while (true) {
+            Partition partition = getPartition();
+            synchronized (partition) {
+                // раздел мог быть вытеснен после getPartition: тогда просмотр пишется в новый раздел клиента
+                if (partition.evicted) continue;
+                index(task.getId(), partition);
+                partition.history.add(task);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void add(TaskValue value) {
+        if (value == null) return;
+        while (true) {
+            Partition partition = getPartition();
+            synchronized (partition) {
+                if (partition.evicted) continue;
+                index(value.id(), partition);
+                partition.history.add(value);
+                return;
+            }
+        }
+    }
+
+    private void index(int id, Partition partition) {
+        partitionsById.compute(id, (key, owners) -> {
+            if (owners == null) owners = new HashSet<>();
+            owners.add(partition);
+            return owners;
+        });
+    }
+
+    /**
+     * Удаленная задача убирается из истории всех клиентов, в которых она есть.
+     */
+    @Override
+    public void remove(int id) {
+        Set<Partition> owners = partitionsById.remove(id);
+        if (owners == null) return;
+        for (Partition partition : owners) {
+            synchronized (partition) {
+                partition.history.remove(id);
+            }
+        }
+    }
+
+    @Override
+    public ArrayList<Task> getHistory() {
+        Partition partition = getPartition();
+        synchronized (partition) {
+            return partition.history.getHistory();
+        }
+    }
+}
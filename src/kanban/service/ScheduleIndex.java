@@ -0,0 +1,153 @@
+package kanban.service;
+
+import kanban.model.Task;
+import kanban.model.TaskTypes;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Упорядоченный индекс задач со временем начала для приоритетного списка.
+ * <p>
+ * Ключ задачи - (начало, тип, id), поэтому задачи с одинаковым началом не вытесняют друг друга. Ключ
+ * запоминается при добавлении, и удаление идет по нему, а не по текущим полям задачи: запись удаляется
+ * верно, даже если объект задачи успели изменить.
+ */
+public class ScheduleIndex {
+    /**
+     * Позиция задачи в расписании. Строковая форма "начало,тип,id" (начало в ISO-формате с точностью
+     * до наносекунд) служит курсором страницы: следующая страница начинается строго после этого ключа.
+     */
+    public static class Key {
+        private final LocalDateTime start;
+        private final TaskTypes type;
+        private final int id;
+
+        public Key(LocalDateTime start, TaskTypes type, int id) {
+            this.start = start;
+            this.type = type;
+            this.id = id;
+        }
+
+        public static Key of(Task task) {
+            return new Key(task.getStartTime(), task.getTaskType(), task.getId());
+        }
+
+        /**
+         * Разбирает курсор из toCursor().
+         *
+         * @throws IllegalArgumentException если курсор имеет неверный формат
+         */
+        public static Key fromCursor(String cursor) {
+            String[] parts = cursor.split(",");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException(String.format("Некорректный курсор: %s", cursor));
+            }
+            try {
+                return new Key(LocalDateTime.parse(parts[0]), TaskTypes.valueOf(parts[1]), Integer.parseInt(parts[2]));
+            } catch (DateTimeParseException exception) {
+                throw new IllegalArgumentException(String.format("Некорректный курсор: %s", cursor), exception);
+            }
+        }
+
+        public String toCursor() {
+            return start + "," + type + "," + id;
+        }
+    }
+
+    private static final Comparator<Key> KEY_COMPARATOR = Comparator
+            .comparing((Key key) -> key.start)
+            .thenComparing(key -> key.type)
+            .thenComparingInt(key -> key.id);
+
+    private final TreeMap<Key, Task> schedule;
+    private final HashMap<Integer, Key> keys;
+
+    public ScheduleIndex() {
+        schedule = new TreeMap<>(KEY_COMPARATOR);
+        keys = new HashMap<>();
+    }
+
+    private static boolean isIndexable(Task task) {
+        return task != null && task.getId() != null && task.getStartTime() != null;
+    }
+
+    /**
+     * Граница для навигации: меньше всех ключей с началом startTime.
+     */
+    private static Key probe(LocalDateTime startTime) {
+        return new Key(startTime, TaskTypes.values()[0], Integer.MIN_VALUE);
+    }
+
+    /**
+     * Добавляет задачу или заменяет запись задачи с тем же id.
+     */
+    public void add(Task task) {
+        if (!isIndexable(task)) return;
+        remove(task.getId());
+        Key key = new Key(task.getStartTime(), task.getTaskType(), task.getId());
+        schedule.put(key, task);
+        keys.put(task.getId(), key);
+    }
+
+    public void remove(Task task) {
+        if (task != null && task.getId() != null) {
+            remove(task.getId());
+        }
+    }
+
+    public void remove(int id) {
+        Key key = keys.remove(id);
+        if (key != null) {
+            schedule.remove(key);
+        }
+    }
+
+    public void clear() {
+        schedule.clear();
+        keys.clear();
+    }
+
+    public int size() {
+        return schedule.size();
+    }
+
+    /**
+     * Все задачи в порядке начала.
+     */
+    public Collection<Task> tasks() {
+        return schedule.values();
+    }
+
+    /**
+     * Задачи с началом в [from, to) в порядке начала; граница null не ограничивает промежуток.
+     * Возвращается представление индекса, а не копия.
+     */
+    public Collection<Task> range(LocalDateTime from, LocalDateTime to) {
+        return range(from, to, null);
+    }
+
+    /**
+     * Как range(from, to), но только задачи строго после ключа after (null - без курсора).
+     */
+    public Collection<Task> range(LocalDateTime from, LocalDateTime to, Key after) {
+        Key lower = from == null ? null : probe(from);
+        boolean lowerInclusive = true;
+        if (after != null && (lower == null || KEY_COMPARATOR.compare(after, lower) >= 0)) {
+            lower = after;
+            lowerInclusive = false;
+        }
+        Key upper = to == null ? null : probe(to);
+        if (lower != null && upper != null && KEY_COMPARATOR.compare(lower, upper) >= 0) return List.of();
+        NavigableMap<Key, Task> range = schedule;
+        if (lower != null) range = range.tailMap(lower, lowerInclusive);
+        if (upper != null) range = range.headMap(upper, false);
+        return range.values();
+    }
+}
@@ -0,0 +1,307 @@
+package kanban.service;
+
+import kanban.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Бинарный формат снимка задач.
+ * <p>
+ * Заголовок: магическое число, версия формата (byte) и количество задач n (int).
+ * <p>
+ * Версия 2 (пишется сейчас) хранит поля колонками фиксированной ширины: id (int[n]), тип (byte[n]),
+ * статус (byte[n]), id эпика (int[n], 0 - нет), начало в минутах от эпохи (long[n]), длительность
+ * в минутах (long[n]) и смещение строк задачи (int[n]). За колонками идет область строк, где для каждой
+ * задачи лежат name и description в UTF-8 с длиной (int) впереди. При чтении файл целиком копируется
+ * в память, колонки разбираются сразу, а строки декодируются только при первом обращении к ним.
+ * <p>
+ * Версия 1 хранит те же поля построчно и по-прежнему читается.
+ * <p>
+ * Отсутствующие время и длительность кодируются как Long.MIN_VALUE, отсутствующая строка - длиной -1.
+ */
+public final class TaskBinaryCodec {
+    public static final int MAGIC = 0x4B4E424E; // "KNBN"
+    public static final byte VERSION = 2;
+    private static final byte ROW_VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES + Integer.BYTES;
+    private static final int COLUMNS_ROW_SIZE = Integer.BYTES + Byte.BYTES + Byte.BYTES + Integer.BYTES
+            + Long.BYTES + Long.BYTES + Integer.BYTES;
+    private static final long NO_VALUE = Long.MIN_VALUE;
+    private static final int NO_EPIC = 0;
+    private static final int NO_STRING = -1;
+    private static final TaskTypes[] TASK_TYPES = TaskTypes.values();
+    private static final TaskStatus[] TASK_STATUSES = TaskStatus.values();
+
+    /**
+     * name и description задачи в прочитанном в память снимке. Буфер не связан с файлом, поэтому файл снимка
+     * можно переименовать, перезаписать или удалить, пока строки еще не декодированы.
+     */
+    static class SnapshotTaskText implements LazyTaskText {
+        private final ByteBuffer buffer;
+        private final int offset;
+
+        SnapshotTaskText(ByteBuffer buffer, int offset) {
+            this.buffer = buffer;
+            this.offset = offset;
+        }
+
+        private static String readString(ByteBuffer buffer, int position) {
+            int length = buffer.getInt(position);
+            if (length == NO_STRING) return null;
+            byte[] bytes = new byte[length];
+            buffer.get(position + Integer.BYTES, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String name() {
+            return readString(buffer, offset);
+        }
+
+        @Override
+        public String description() {
+            int nameLength = buffer.getInt(offset);
+            return readString(buffer, offset + Integer.BYTES + Math.max(nameLength, 0));
+        }
+
+        /**
+         * Размер записи строк задачи в снимке: name и description вместе с их длинами.
+         */
+        int size() {
+            int nameLength = Math.max(buffer.getInt(offset), 0);
+            int descriptionLength = Math.max(buffer.getInt(offset + Integer.BYTES + nameLength), 0);
+            return 2 * Integer.BYTES + nameLength + descriptionLength;
+        }
+
+        /**
+         * Копирует запись строк как есть, без декодирования: формат записи в новом снимке тот же.
+         */
+        void writeTo(DataOutputStream output) throws IOException {
+            byte[] bytes = new byte[size()];
+            buffer.get(offset, bytes);
+            output.write(bytes);
+        }
+    }
+
+    private TaskBinaryCodec() {
+    }
+
+    private static byte[] encodeString(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream output, byte[] value) throws IOException {
+        if (value == null) {
+            output.writeInt(NO_STRING);
+            return;
+        }
+        output.writeInt(value.length);
+        output.write(value);
+    }
+
+    private static long toEpochMinutes(LocalDateTime dateTime) {
+        return dateTime == null ? NO_VALUE : dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static LocalDateTime fromEpochMinutes(long minutes) {
+        return minutes == NO_VALUE ? null : LocalDateTime.ofEpochSecond(minutes * 60, 0, ZoneOffset.UTC);
+    }
+
+    public static byte[] encode(List<? extends Task> tasks) {
+        int count = tasks.size();
+        // строки кодируются заранее, чтобы знать их смещения для колонки; еще не декодированные строки
+        // из прошлого снимка копируются байтами как есть
+        byte[][] names = new byte[count][];
+        byte[][] descriptions = new byte[count][];
+        SnapshotTaskText[] snapshotTexts = new SnapshotTaskText[count];
+        int[] textOffsets = new int[count];
+        int textsStart = HEADER_SIZE + COLUMNS_ROW_SIZE * count;
+        int textOffset = textsStart;
+        for (int i = 0; i < count; i++) {
+            Task task = tasks.get(i);
+            textOffsets[i] = textOffset;
+            if (task.getLazyText() instanceof SnapshotTaskText snapshotText) {
+                snapshotTexts[i] = snapshotText;
+                textOffset += snapshotText.size();
+                continue;
+            }
+            names[i] = encodeString(task.getName());
+            descriptions[i] = encodeString(task.getDescription());
+            textOffset += 2 * Integer.BYTES + (names[i] == null ? 0 : names[i].length)
+                    + (descriptions[i] == null ? 0 : descriptions[i].length);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(textOffset);
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+            output.writeInt(count);
+            for (Task task : tasks) {
+                output.writeInt(task.getId());
+            }
+            for (Task task : tasks) {
+                output.writeByte(task.getTaskType().ordinal());
+            }
+            for (Task task : tasks) {
+                output.writeByte(task.getStatus().ordinal());
+            }
+            for (Task task : tasks) {
+                output.writeInt(task.getTaskType() == TaskTypes.SUBTASK ? ((Subtask) task).epic : NO_EPIC);
+            }
+            for (Task task : tasks) {
+                output.writeLong(toEpochMinutes(task.getStartTime()));
+            }
+            for (Task task : tasks) {
+                output.writeLong(task.getDuration() == null ? NO_VALUE : task.getDuration().toMinutes());
+            }
+            for (int i = 0; i < count; i++) {
+                output.writeInt(textOffsets[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                if (snapshotTexts[i] != null) {
+                    snapshotTexts[i].writeTo(output);
+                } else {
+                    writeString(output, names[i]);
+                    writeString(output, descriptions[i]);
+                }
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static boolean isBinarySnapshot(File file) throws IOException {
+        if (file.length() < Integer.BYTES) return false;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read until the magic number is complete
+            }
+            return !buffer.hasRemaining() && buffer.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Читает снимок в память одним блоком. Файл не отображается в память: отображение держало бы его
+     * открытым, пока живут задачи с недекодированными строками, и мешало бы ротации снимков.
+     * Обрезанный или чужой файл приводит к исключению, чтобы вызывающий мог перейти к резервной копии.
+     */
+    public static List<Task> read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException(String.format("Снимок %s слишком велик.", file));
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read until the whole file is in memory
+            }
+            buffer.flip();
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalStateException(String.format("Файл %s не является бинарным снимком.", file));
+            }
+            byte version = buffer.get();
+            int count = buffer.getInt();
+            return switch (version) {
+                case ROW_VERSION -> readRows(buffer, count, file);
+                case VERSION -> readColumns(buffer, count, file);
+                default -> throw new IllegalStateException(String.format("Неподдерживаемая версия снимка: %s.",
+                        version));
+            };
+        }
+    }
+
+    private static Task createTask(int id, TaskTypes taskType, TaskStatus taskStatus, String name,
+                                   String description, int epic, LocalDateTime startTime, Duration duration) {
+        return switch (taskType) {
+            case TASK -> new Task(id, taskStatus, name, description, startTime, duration);
+            case EPIC -> new Epic(id, taskStatus, name, description, startTime, duration);
+            case SUBTASK -> new Subtask(id, taskStatus, name, description, epic, startTime, duration);
+        };
+    }
+
+    private static List<Task> readColumns(ByteBuffer buffer, int count, File file) {
+        int idsStart = HEADER_SIZE;
+        int typesStart = idsStart + Integer.BYTES * count;
+        int statusesStart = typesStart + Byte.BYTES * count;
+        int epicsStart = statusesStart + Byte.BYTES * count;
+        int startTimesStart = epicsStart + Integer.BYTES * count;
+        int durationsStart = startTimesStart + Long.BYTES * count;
+        int textOffsetsStart = durationsStart + Long.BYTES * count;
+        int textsStart = textOffsetsStart + Integer.BYTES * count;
+        if (count < 0 || textsStart > buffer.limit()) {
+            throw new IllegalStateException(String.format("Снимок %s обрезан.", file));
+        }
+
+        List<Task> tasks = new ArrayList<>(count);
+        int textsEnd = textsStart;
+        for (int i = 0; i < count; i++) {
+            long durationMinutes = buffer.getLong(durationsStart + Long.BYTES * i);
+            int textOffset = buffer.getInt(textOffsetsStart + Integer.BYTES * i);
+            Task task = createTask(buffer.getInt(idsStart + Integer.BYTES * i),
+                    TASK_TYPES[buffer.get(typesStart + i)],
+                    TASK_STATUSES[buffer.get(statusesStart + i)],
+                    null, null,
+                    buffer.getInt(epicsStart + Integer.BYTES * i),
+                    fromEpochMinutes(buffer.getLong(startTimesStart + Long.BYTES * i)),
+                    durationMinutes == NO_VALUE ? null : Duration.ofMinutes(durationMinutes));
+            task.setLazyText(new SnapshotTaskText(buffer, textOffset));
+            tasks.add(task);
+            textsEnd = Math.max(textsEnd, textOffset);
+        }
+
+        // проверяем, что область строк дописана до конца, не декодируя сами строки
+        if (count > 0) {
+            int nameLength = buffer.getInt(textsEnd);
+            int descriptionPosition = textsEnd + Integer.BYTES + Math.max(nameLength, 0);
+            int descriptionLength = buffer.getInt(descriptionPosition);
+            textsEnd = descriptionPosition + Integer.BYTES + Math.max(descriptionLength, 0);
+        }
+        if (textsEnd != buffer.limit()) {
+            throw new IllegalStateException(String.format("Снимок %s обрезан или поврежден.", file));
+        }
+        return tasks;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NO_STRING) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<Task> readRows(ByteBuffer buffer, int count, File file) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = buffer.getInt();
+            TaskTypes taskType = TASK_TYPES[buffer.get()];
+            TaskStatus taskStatus = TASK_STATUSES[buffer.get()];
+            int epic = buffer.getInt();
+            LocalDateTime startTime = fromEpochMinutes(buffer.getLong());
+            long durationMinutes = buffer.getLong();
+            String name = readString(buffer);
+            String description = readString(buffer);
+            tasks.add(createTask(id, taskType, taskStatus, name, description, epic, startTime,
+                    durationMinutes == NO_VALUE ? null : Duration.ofMinutes(durationMinutes)));
+        }
+        if (buffer.hasRemaining()) {
+            throw new IllegalStateException(String.format("Лишние данные в конце снимка %s.", file));
+        }
+        return tasks;
+    }
+}
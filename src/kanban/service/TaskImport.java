@@ -0,0 +1,80 @@
+package kanban.service;
+
+import kanban.exception.NotFoundException;
+import kanban.model.Epic;
+import kanban.model.Operation;
+import kanban.model.Subtask;
+import kanban.model.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Разбиение источника импорта на пакеты операций добавления. Подзадачи привязываются к новым id своих эпиков:
+ * эпики из уже примененных пакетов известны по результатам (commit), а эпики текущего пакета - по ссылке -k
+ * на их операцию. Чтение источника не требует блокировок менеджера, поэтому ConcurrentTaskManager читает
+ * пакет вне блокировки и берет блокировку записи только на его применение.
+ */
+class TaskImport {
+    private final Iterator<? extends Task> source;
+    private final int batchSize;
+    // id эпика в источнике -> новый id, а для эпиков текущего пакета - ссылка -k на его операцию
+    private final Map<Integer, Integer> epicIds;
+    private final List<Integer> batchEpics;
+    private int imported;
+
+    TaskImport(Iterator<? extends Task> source, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException(String.format("Некорректный размер пакета: %s", batchSize));
+        }
+        this.source = source;
+        this.batchSize = batchSize;
+        this.epicIds = new HashMap<>();
+        this.batchEpics = new ArrayList<>();
+    }
+
+    /**
+     * Следующий пакет (не больше batchSize операций); пустой, если источник исчерпан.
+     */
+    List<Operation> nextBatch() {
+        List<Operation> batch = new ArrayList<>(Math.min(batchSize, 1024));
+        while (batch.size() < batchSize && source.hasNext()) {
+            Task task = source.next();
+            if (task == null) {
+                throw new IllegalArgumentException("В источнике пустая задача.");
+            }
+            if (task instanceof Subtask subtask) {
+                Integer epicId = subtask.epic == null ? null : epicIds.get(subtask.epic);
+                if (epicId == null) {
+                    throw new NotFoundException(String.format("Эпик %s подзадачи %s не найден среди импортированных.",
+                            subtask.epic, subtask.getId()));
+                }
+                task = InMemoryTaskManager.withEpic(subtask, epicId);
+            } else if (task instanceof Epic && task.getId() != null) {
+                epicIds.put(task.getId(), -(batch.size() + 1));
+                batchEpics.add(task.getId());
+            }
+            batch.add(new Operation(Operation.Type.ADD, task));
+        }
+        return batch;
+    }
+
+    /**
+     * Запоминает новые id эпиков примененного пакета и возвращает число импортированных задач.
+     */
+    int commit(List<Task> results) {
+        for (Integer sourceId : batchEpics) {
+            epicIds.put(sourceId, results.get(-epicIds.get(sourceId) - 1).getId());
+        }
+        batchEpics.clear();
+        imported += results.size();
+        return imported;
+    }
+
+    int getImported() {
+        return imported;
+    }
+}
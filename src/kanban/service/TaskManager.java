@@ -2,15 +2,34 @@ package kanban.service;
 
 import kanban.model.*;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 
 public interface TaskManager {
-    ArrayList<Task> getTasks();
+    /**
+     * Списки задач, эпиков, подзадач и getPrioritizedTasks() неизменяемы и общие для всех читателей
+     * до следующего изменения менеджера.
+     */
+    List<Task> getTasks();
 
-    ArrayList<Subtask> getSubtasks();
+    List<Subtask> getSubtasks();
 
-    ArrayList<Epic> getEpics();
+    List<Epic> getEpics();
+
+    /**
+     * Страница задач по возрастанию id: не больше limit задач с id строго больше afterId (null - с начала).
+     */
+    ArrayList<Task> getTasks(Integer afterId, int limit);
+
+    ArrayList<Subtask> getSubtasks(Integer afterId, int limit);
+
+    ArrayList<Epic> getEpics(Integer afterId, int limit);
 
     void deleteAllTasks();
 
@@ -44,7 +63,100 @@ public interface TaskManager {
 
     ArrayList<Subtask> getEpicSubtasks(Epic epic);
 
+    /**
+     * true, если получение задачи по id (с записью в историю) можно выполнять параллельно с другими чтениями.
+     */
+    default boolean supportsConcurrentReads() {
+        return false;
+    }
+
+    /**
+     * После вызова изменения текущего потока не ждут записи на диск, даже если менеджер обычно ее ждет
+     * (FileBackedTaskManager с Durability.SYNC), пока поток не вызовет awaitDeferredCommit().
+     */
+    default void beginDeferredCommit() {
+    }
+
+    /**
+     * Дожидается записи изменений текущего потока, сделанных после beginDeferredCommit(), и выключает
+     * этот режим. Вызывается после снятия внешних блокировок, чтобы изменения других потоков успели
+     * попасть в ту же групповую запись.
+     */
+    default void awaitDeferredCommit() {
+    }
+
+    /**
+     * Применяет операции пакета целиком или не применяет ни одной. Возвращает результаты операций
+     * в том же порядке (для удалений - null).
+     */
+    List<Task> applyBatch(List<Operation> operations);
+
+    /**
+     * Добавляет задачи из источника пакетами по batchSize (каждый через applyBatch) и возвращает их число.
+     * Задачи получают новые id, подзадачи привязываются к новым id своих эпиков, поэтому эпик должен
+     * встретиться в источнике раньше своих подзадач. При ошибке уже примененные пакеты остаются.
+     */
+    default int importTasks(Iterator<? extends Task> source, int batchSize) {
+        return importTasks(source, batchSize, imported -> {
+        });
+    }
+
+    /**
+     * Как importTasks(source, batchSize), но после каждого примененного пакета передает в progress число
+     * уже импортированных задач. Так при ошибке известно, сколько задач осталось добавленными.
+     */
+    int importTasks(Iterator<? extends Task> source, int batchSize, IntConsumer progress);
+
+    /**
+     * Выполняет action как одно согласованное чтение: пока оно идет, изменения других потоков не применяются
+     * (в ConcurrentTaskManager - одна блокировка чтения на все action). Нужно, чтобы несколько страниц
+     * одного обхода относились к одному состоянию.
+     */
+    default <T> T readConsistently(Supplier<T> action) {
+        return action.get();
+    }
+
     ArrayList<Task> getHistory();
 
+    /**
+     * Страница истории просмотров: не больше limit задач, просмотренных после задачи afterId (null - с начала).
+     */
+    ArrayList<Task> getHistory(Integer afterId, int limit);
+
     List<Task> getPrioritizedTasks();
+
+    /**
+     * Страница приоритетного списка: не больше limit задач со временем начала строго позже after (null - с начала).
+     */
+    List<Task> getPrioritizedTasks(LocalDateTime after, int limit);
+
+    /**
+     * Задачи приоритетного списка со временем начала в промежутке [from, to) в порядке начала, не больше limit.
+     * Граница null не ограничивает промежуток с этой стороны.
+     */
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit);
+
+    /**
+     * Как getPrioritizedTasks(from, to, limit), но только задачи, которые в расписании стоят строго после
+     * ключа after (null - с начала промежутка). Задачи с одинаковым началом при этом не пропускаются.
+     */
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, ScheduleIndex.Key after, int limit);
+
+    /**
+     * Первые limit свободных промежутков расписания в [from, to), в каждый из которых помещается задача
+     * длительностью duration без пересечений (to == null - без правой границы, последний промежуток тогда
+     * не ограничен справа).
+     */
+    List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit);
+
+    /**
+     * Ревизия данных менеджера. Растет при каждом изменении задач, подзадач или эпиков
+     * и не меняется при чтении.
+     */
+    long getRevision();
+
+    /**
+     * Время последнего изменения данных менеджера.
+     */
+    Instant getLastModified();
 }
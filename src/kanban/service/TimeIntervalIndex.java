@@ -0,0 +1,144 @@
+package kanban.service;
+
+import kanban.model.Task;
+import kanban.model.TimeSlot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Индекс временных интервалов задач для проверки пересечений за O(log n).
+ * <p>
+ * Хранит только задачи, у которых определены и начало, и окончание. Так как менеджер не допускает
+ * пересекающихся задач, интервалы в индексе попарно не пересекаются. При сортировке по (start, end, id)
+ * окончания интервалов тоже не убывают, поэтому среди интервалов, начинающихся раньше конца проверяемого,
+ * наибольшее окончание всегда у последнего из них.
+ * <p>
+ * Интервал задачи запоминается по id при добавлении, и удаление идет по нему, а не по текущим полям
+ * задачи (как в ScheduleIndex): запись удаляется верно, даже если объект задачи успели изменить.
+ */
+public class TimeIntervalIndex {
+    static class Interval {
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final int id;
+
+        Interval(LocalDateTime start, LocalDateTime end, int id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+        }
+    }
+
+    private static final Comparator<Interval> INTERVAL_COMPARATOR = Comparator
+            .comparing((Interval interval) -> interval.start)
+            .thenComparing(interval -> interval.end)
+            .thenComparingInt(interval -> interval.id);
+
+    private final TreeSet<Interval> intervals;
+    private final HashMap<Integer, Interval> intervalsById;
+
+    public TimeIntervalIndex() {
+        intervals = new TreeSet<>(INTERVAL_COMPARATOR);
+        intervalsById = new HashMap<>();
+    }
+
+    private static boolean isIndexable(Task task) {
+        return task != null && task.getId() != null && task.getStartTime() != null && task.getEndTime() != null;
+    }
+
+    /**
+     * Добавляет интервал задачи или заменяет интервал задачи с тем же id.
+     */
+    public void add(Task task) {
+        if (!isIndexable(task)) return;
+        remove(task.getId());
+        Interval interval = new Interval(task.getStartTime(), task.getEndTime(), task.getId());
+        intervals.add(interval);
+        intervalsById.put(task.getId(), interval);
+    }
+
+    public void remove(Task task) {
+        if (task != null && task.getId() != null) {
+            remove(task.getId());
+        }
+    }
+
+    public void remove(int id) {
+        Interval interval = intervalsById.remove(id);
+        if (interval != null) {
+            intervals.remove(interval);
+        }
+    }
+
+    public void clear() {
+        intervals.clear();
+        intervalsById.clear();
+    }
+
+    public int size() {
+        return intervals.size();
+    }
+
+    /**
+     * Проверяет, пересекается ли интервал задачи с каким-либо интервалом в индексе. id задачи не учитывается:
+     * у добавляемой задачи он может совпадать с id чужой задачи (например, при импорте).
+     */
+    public boolean hasIntersections(Task task) {
+        return hasIntersections(task, null);
+    }
+
+    /**
+     * Как hasIntersections(task), но без интервала задачи excludedId, которую заменяет проверяемая (обновление).
+     */
+    public boolean hasIntersections(Task task, Integer excludedId) {
+        if (task == null || task.getStartTime() == null || task.getEndTime() == null) return false;
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getEndTime();
+
+        // последний интервал, начинающийся строго раньше окончания проверяемого
+        Interval candidate = intervals.lower(new Interval(end, LocalDateTime.MIN, Integer.MIN_VALUE));
+        if (candidate != null && excludedId != null && candidate == intervalsById.get(excludedId)) {
+            candidate = intervals.lower(candidate);
+        }
+        return candidate != null && candidate.end.isAfter(start);
+    }
+
+    /**
+     * Первые limit свободных промежутков в [from, to), в каждый из которых помещается задача длительностью
+     * duration (to == null - без правой границы). Проход начинается с интервала, покрывающего from, и идет
+     * по интервалам в порядке начала, поэтому стоит O(log n + k), где k - число пройденных интервалов.
+     */
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit) {
+        List<TimeSlot> slots = new ArrayList<>();
+        if (limit == 0 || (to != null && !from.isBefore(to))) return slots;
+
+        // среди интервалов, начинающихся до from, наибольшее окончание у последнего
+        LocalDateTime gapStart = from;
+        Interval previous = intervals.lower(new Interval(from, LocalDateTime.MIN, Integer.MIN_VALUE));
+        if (previous != null && previous.end.isAfter(gapStart)) {
+            gapStart = previous.end;
+        }
+        for (Interval interval : intervals.tailSet(new Interval(from, LocalDateTime.MIN, Integer.MIN_VALUE))) {
+            if (to != null && !interval.start.isBefore(to)) break;
+            if (!gapStart.plus(duration).isAfter(interval.start)) {
+                slots.add(new TimeSlot(gapStart, interval.start));
+                if (slots.size() == limit) return slots;
+            }
+            if (interval.end.isAfter(gapStart)) {
+                gapStart = interval.end;
+            }
+        }
+        if (to == null) {
+            slots.add(new TimeSlot(gapStart, null));
+        } else if (!gapStart.plus(duration).isAfter(to)) {
+            slots.add(new TimeSlot(gapStart, to));
+        }
+        return slots;
+    }
+}
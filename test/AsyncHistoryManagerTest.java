@@ -0,0 +1,72 @@
+import kanban.model.Task;
+import kanban.model.TaskStatus;
+import kanban.service.AsyncHistoryManager;
+import kanban.service.InMemoryHistoryManager;
+import kanban.service.PartitionedHistoryManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AsyncHistoryManagerTest {
+
+    @AfterEach
+    void tearDown() {
+        PartitionedHistoryManager.setCurrentClient(null);
+    }
+
+    private static Task task(int id) {
+        return new Task(id, TaskStatus.NEW, "Task" + id, "Task" + id);
+    }
+
+    private static List<Integer> ids(List<Task> history) {
+        return history.stream().map(Task::getId).toList();
+    }
+
+    @Test
+    void historyIncludesAllViewsMadeBeforeRead() {
+        for (AsyncHistoryManager.Recording recording : AsyncHistoryManager.Recording.values()) {
+            AsyncHistoryManager historyManager =
+                    new AsyncHistoryManager(new InMemoryHistoryManager(), recording, 4);
+            for (int i = 1; i <= 10; i++) {
+                historyManager.add(task(i));
+            }
+            historyManager.add(task(3));
+            historyManager.remove(5);
+            historyManager.add(task(5));
+            historyManager.remove(5);
+
+            assertEquals(List.of(1, 2, 4, 6, 7, 8, 9, 10, 3), ids(historyManager.getHistory()),
+                    "Неверная история в режиме " + recording);
+        }
+    }
+
+    @Test
+    void viewsFromManyThreadsAreRecordedPerClient() throws InterruptedException {
+        AsyncHistoryManager historyManager = new AsyncHistoryManager(new PartitionedHistoryManager());
+        List<Thread> threads = new ArrayList<>();
+        for (int client = 0; client < 4; client++) {
+            String clientId = "client" + client;
+            int firstId = client * 100;
+            threads.add(Thread.ofPlatform().start(() -> {
+                PartitionedHistoryManager.setCurrentClient(clientId);
+                for (int id = firstId; id < firstId + 100; id++) {
+                    historyManager.add(task(id));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int client = 0; client < 4; client++) {
+            PartitionedHistoryManager.setCurrentClient("client" + client);
+            assertEquals(IntStream.range(client * 100, client * 100 + 100).boxed().toList(),
+                    ids(historyManager.getHistory()), "Неверная история клиента " + client);
+        }
+    }
+}
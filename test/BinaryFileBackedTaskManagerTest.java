@@ -0,0 +1,135 @@
+import kanban.model.*;
+import kanban.service.FileBackedTaskManager;
+import kanban.service.FileBackedTaskManager.PersistenceMode;
+import kanban.service.FileBackedTaskManager.SnapshotFormat;
+import kanban.service.TaskBinaryCodec;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+    @BeforeEach
+    void setUp() throws IOException {
+        File file = File.createTempFile("BinaryFileBackedTaskManagerTest", ".bin");
+        taskManager = new FileBackedTaskManager(file, PersistenceMode.SNAPSHOT, SnapshotFormat.BINARY);
+    }
+
+    @Test
+    void saveAndLoadBinarySnapshot() throws IOException {
+        Task task = taskManager.addTask(new Task("Задача, с запятой", "",
+                LocalDateTime.of(2024, 5, 1, 10, 15), Duration.ofMinutes(30)));
+        Epic epic = taskManager.addEpic(new Epic("e1", "e1"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, TaskStatus.DONE, "s1", "s1", epic.getId(),
+                LocalDateTime.of(2024, 5, 2, 10, 0), Duration.ofMinutes(45)));
+
+        assertTrue(TaskBinaryCodec.isBinarySnapshot(taskManager.getFile()), "Снимок записан не в бинарном формате.");
+
+        FileBackedTaskManager taskManagerFromFile = FileBackedTaskManager.loadFromFile(taskManager.getFile());
+
+        assertTrue(task.equalsByAllFields(taskManagerFromFile.getTask(task.getId())), "Задача восстановлена неверно.");
+        assertTrue(taskManager.getEpic(epic.getId()).equalsByAllFields(taskManagerFromFile.getEpic(epic.getId())),
+                "Эпик восстановлен неверно.");
+        assertTrue(subtask.equalsByAllFields(taskManagerFromFile.getSubtask(subtask.getId())),
+                "Сабтаск восстановлен неверно.");
+    }
+
+    @Test
+    void csvSnapshotIsMigratedToBinary() throws IOException {
+        FileBackedTaskManager csvTaskManager = new FileBackedTaskManager(taskManager.getFile());
+        Task task = csvTaskManager.addTask(new Task("t1", "t1"));
+        assertFalse(TaskBinaryCodec.isBinarySnapshot(csvTaskManager.getFile()), "Снимок записан не в формате CSV.");
+
+        FileBackedTaskManager binaryTaskManager = FileBackedTaskManager.loadFromFile(taskManager.getFile(),
+                PersistenceMode.SNAPSHOT, SnapshotFormat.BINARY);
+        assertEquals(task, binaryTaskManager.getTask(task.getId()), "CSV-снимок не загружен.");
+
+        binaryTaskManager.addTask(new Task("t2", "t2"));
+        assertTrue(TaskBinaryCodec.isBinarySnapshot(taskManager.getFile()), "Снимок не переведен в бинарный формат.");
+        assertEquals(2, FileBackedTaskManager.loadFromFile(taskManager.getFile()).getTasks().size(),
+                "Бинарный снимок загружен неверно.");
+    }
+
+    @Test
+    void textIsDecodedOnlyWhenTaskIsReturned() {
+        Task task1 = taskManager.addTask(new Task("t1", "Первая задача"));
+        Task task2 = taskManager.addTask(new Task("t2", null));
+
+        FileBackedTaskManager taskManagerFromFile = FileBackedTaskManager.loadFromFile(taskManager.getFile());
+
+        Task copy1 = taskManagerFromFile.getTask(task1.getId());
+        assertEquals("t1", copy1.getName(), "Неверно декодировано имя задачи.");
+        assertEquals("Первая задача", copy1.getDescription(), "Неверно декодировано описание задачи.");
+        Task copy2 = taskManagerFromFile.getTask(task2.getId());
+        assertNull(copy2.getDescription(), "Пустое описание декодировано неверно.");
+
+        for (Task task : taskManagerFromFile.getTasks()) {
+            assertTrue(task.isTextMaterialized(), "Строки задачи не декодированы при выдаче списка.");
+        }
+    }
+
+    @Test
+    void lazyTextIsCopiedWithoutDecoding() throws IOException {
+        taskManager.addTask(new Task("t1", "Первая задача"));
+        taskManager.addTask(new Task("t2", null));
+        List<Task> lazyTasks = TaskBinaryCodec.read(taskManager.getFile());
+        Task changed = new Task(lazyTasks.get(1));
+        changed.setName("Вторая задача");
+
+        File copy = File.createTempFile("BinaryFileBackedTaskManagerTest", ".bin");
+        Files.write(copy.toPath(), TaskBinaryCodec.encode(List.of(lazyTasks.get(0), changed)));
+        assertFalse(lazyTasks.get(0).isTextMaterialized(), "Строки задачи декодированы при записи снимка.");
+
+        List<Task> tasks = TaskBinaryCodec.read(copy);
+        assertEquals("t1", tasks.get(0).getName(), "Неверно скопировано имя задачи.");
+        assertEquals("Первая задача", tasks.get(0).getDescription(), "Неверно скопировано описание задачи.");
+        assertEquals("Вторая задача", tasks.get(1).getName(), "Неверно записано измененное имя задачи.");
+        assertNull(tasks.get(1).getDescription(), "Пустое описание записано неверно.");
+    }
+
+    @Test
+    void loadedTextDoesNotDependOnRotatedSnapshotFile() throws IOException {
+        Task task = taskManager.addTask(new Task("t1", "Первая задача"));
+        FileBackedTaskManager taskManagerFromFile = FileBackedTaskManager.loadFromFile(taskManager.getFile(),
+                PersistenceMode.SNAPSHOT, SnapshotFormat.BINARY);
+
+        // два сохранения сдвигают загруженный снимок в file.2
+        taskManagerFromFile.addTask(new Task("t2", "t2"));
+        taskManagerFromFile.addTask(new Task("t3", "t3"));
+        File loadedSnapshot = new File(taskManager.getFile().getPath() + ".2");
+        try (RandomAccessFile file = new RandomAccessFile(loadedSnapshot, "rw")) {
+            file.write(new byte[(int) file.length()]);
+        }
+
+        Task loadedTask = taskManagerFromFile.getTask(task.getId());
+        assertEquals("t1", loadedTask.getName(), "Имя задачи зависит от файла загруженного снимка.");
+        assertEquals("Первая задача", loadedTask.getDescription(),
+                "Описание задачи зависит от файла загруженного снимка.");
+
+        taskManagerFromFile.addTask(new Task("t4", "t4"));
+        assertEquals("t1", FileBackedTaskManager.loadFromFile(taskManager.getFile()).getTask(task.getId()).getName(),
+                "Недекодированные строки неверно перенесены в следующий снимок.");
+    }
+
+    @Test
+    void truncatedBinarySnapshotFallsBackToPrevious() throws IOException {
+        taskManager.addTask(new Task("t1", "t1"));
+        taskManager.addTask(new Task("t2", "t2"));
+
+        try (RandomAccessFile file = new RandomAccessFile(taskManager.getFile(), "rw")) {
+            file.setLength(file.length() - 1);
+        }
+
+        assertEquals(1, FileBackedTaskManager.loadFromFile(taskManager.getFile()).getTasks().size(),
+                "Не восстановлен предыдущий снимок.");
+    }
+}
@@ -0,0 +1,168 @@
+import kanban.exception.NotFoundException;
+import kanban.exception.TasksIntersectedException;
+import kanban.model.*;
+import kanban.service.ConcurrentTaskManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    @BeforeEach
+    void setUp() {
+        taskManager = new ConcurrentTaskManager();
+    }
+
+    @Test
+    void invariantsHoldUnderConcurrentChanges() throws Exception {
+        final int threads = 8;
+        final int operationsPerThread = 500;
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            epics.add(taskManager.addEpic(new Epic("Epic" + i, "Epic" + i)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                startLatch.await();
+                for (int i = 0; i < operationsPerThread; i++) {
+                    // небольшое окно времени, чтобы пересечения случались часто
+                    LocalDateTime startTime = start.plusMinutes(15L * random.nextInt(200));
+                    Duration duration = Duration.ofMinutes(15L * (1 + random.nextInt(3)));
+                    Epic epic = epics.get(random.nextInt(epics.size()));
+                    try {
+                        switch (random.nextInt(6)) {
+                            case 0 -> taskManager.addTask(new Task("Task", "Task", startTime, duration));
+                            case 1 -> taskManager.addSubtask(new Subtask("Subtask", "Subtask",
+                                    epic.getId(), startTime, duration));
+                            case 2 -> {
+                                List<Subtask> subtasks = taskManager.getSubtasks();
+                                if (subtasks.isEmpty()) break;
+                                Subtask subtask = subtasks.get(random.nextInt(subtasks.size()));
+                                taskManager.updateSubtask(new Subtask(subtask.getId(),
+                                        TaskStatus.values()[random.nextInt(TaskStatus.values().length)],
+                                        "Updated", "Updated", epic.getId(), startTime, duration));
+                            }
+                            case 3 -> {
+                                List<Subtask> subtasks = taskManager.getSubtasks();
+                                if (subtasks.isEmpty()) break;
+                                taskManager.deleteSubtask(subtasks.get(random.nextInt(subtasks.size())).getId());
+                            }
+                            case 4 -> {
+                                List<Task> tasks = taskManager.getTasks();
+                                if (tasks.isEmpty()) break;
+                                taskManager.deleteTask(tasks.get(random.nextInt(tasks.size())).getId());
+                            }
+                            default -> taskManager.getPrioritizedTasks();
+                        }
+                    } catch (TasksIntersectedException | NotFoundException ignored) {
+                        // пересечение или задача, удаленная другим потоком, - ожидаемые исходы
+                    }
+                }
+                return null;
+            }));
+        }
+        startLatch.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+        assertEquals(taskManager.getTasks().size() + taskManager.getSubtasks().size(), prioritizedTasks.size(),
+                "Индекс расписания не совпадает с задачами.");
+        for (int i = 1; i < prioritizedTasks.size(); i++) {
+            assertFalse(prioritizedTasks.get(i - 1).getEndTime().isAfter(prioritizedTasks.get(i).getStartTime()),
+                    "В расписании есть пересекающиеся задачи.");
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        taskManager.getTasks().forEach(task -> assertTrue(ids.add(task.getId()), "id задач повторяются."));
+        taskManager.getSubtasks().forEach(task -> assertTrue(ids.add(task.getId()), "id задач повторяются."));
+        taskManager.getEpics().forEach(task -> assertTrue(ids.add(task.getId()), "id задач повторяются."));
+
+        int linkedSubtasks = 0;
+        for (Epic epic : taskManager.getEpics()) {
+            List<Subtask> epicSubtasks = taskManager.getEpicSubtasks(epic);
+            linkedSubtasks += epicSubtasks.size();
+            for (Subtask subtask : epicSubtasks) {
+                assertEquals(epic.getId(), subtask.epic, "Сабтаск привязан не к своему эпику.");
+            }
+        }
+        assertEquals(taskManager.getSubtasks().size(), linkedSubtasks, "Список сабтасков эпиков поврежден.");
+    }
+
+    @Test
+    void consistentReadHoldsOffChanges() throws Exception {
+        taskManager.addTask(new Task("Task", "Task"));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            List<Integer> counts = taskManager.readConsistently(() -> {
+                Future<?> change = executor.submit(() -> taskManager.addTask(new Task("New", "New")));
+                int before = taskManager.getTasks().size();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                assertFalse(change.isDone(), "Изменение применилось во время согласованного чтения.");
+                return List.of(before, taskManager.getTasks().size());
+            });
+            assertEquals(List.of(1, 1), counts, "Чтение увидело изменение другого потока.");
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, taskManager.getTasks().size(), "Изменение не применилось после чтения.");
+    }
+
+    @Test
+    void importReadsSourceOutsideWriteLock() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Iterator<Task> source = new Iterator<>() {
+                private int read;
+
+                @Override
+                public boolean hasNext() {
+                    return read < 2;
+                }
+
+                @Override
+                public Task next() {
+                    if (read == 1) {
+                        // пока источник ждет данных, другие потоки могут менять доску
+                        Future<Task> change = executor.submit(() -> taskManager.addTask(new Task("Other", "Other")));
+                        assertDoesNotThrow(() -> change.get(5, TimeUnit.SECONDS),
+                                "Изменение заблокировано на время чтения источника импорта.");
+                    }
+                    read++;
+                    return new Task("Imported" + read, "Imported" + read);
+                }
+            };
+            assertEquals(2, taskManager.importTasks(source, 1), "Импортированы не все задачи.");
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(3, taskManager.getTasks().size(), "Неверное количество задач.");
+    }
+}
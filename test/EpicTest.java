@@ -1,7 +1,11 @@
 import kanban.model.Epic;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class EpicTest {
 
@@ -13,4 +17,20 @@ class EpicTest {
         assertEquals(epic1, epic2);
     }
 
-}
\ No newline at end of file
+    @Test
+    void subtasksAreKeptSortedWithoutDuplicates() {
+        Epic epic = new Epic(1, "Эпик", "Эпик");
+        for (int id : new int[]{5, 2, 9, 2, 7}) {
+            epic.addSubtask(id);
+        }
+        assertEquals(List.of(2, 5, 7, 9), epic.getSubtasks(), "Неверный список сабтасков.");
+
+        assertTrue(epic.removeSubtask(5), "Сабтаск не удален.");
+        assertFalse(epic.removeSubtask(5), "Удален отсутствующий сабтаск.");
+        assertEquals(List.of(2, 7, 9), epic.getSubtasks(), "Неверный список сабтасков после удаления.");
+
+        Epic copy = new Epic(epic);
+        copy.addSubtask(10);
+        assertEquals(List.of(2, 7, 9), epic.getSubtasks(), "Копия эпика делит список сабтасков с оригиналом.");
+    }
+}
@@ -1,14 +1,20 @@
 import kanban.model.*;
 import kanban.service.FileBackedTaskManager;
+import kanban.service.TaskParser;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -70,4 +76,51 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         assertEquals(subtask.epic, loadedSubtask.epic, "В восстановленном сабтаске неверное поле epic.");
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void loadFromFileRestoresEpicCalculatedFields() {
+        Epic epic = taskManager.addEpic(new Epic("e1", "e1"));
+        taskManager.addSubtask(new Subtask(0, TaskStatus.DONE, "s1", "s1", epic.getId(),
+                LocalDateTime.of(2024, 5, 1, 10, 0), Duration.ofMinutes(60)));
+        taskManager.addSubtask(new Subtask(0, TaskStatus.NEW, "s2", "s2", epic.getId(),
+                LocalDateTime.of(2024, 5, 2, 10, 0), Duration.ofMinutes(30)));
+
+        FileBackedTaskManager taskManagerFromFile = FileBackedTaskManager.loadFromFile(taskManager.getFile());
+
+        assertTrue(taskManager.getEpic(epic.getId()).equalsByAllFields(taskManagerFromFile.getEpic(epic.getId())),
+                "Расчетные поля восстановленного эпика не совпадают с изначальными.");
+    }
+
+    @Test
+    void loadFromFileFallsBackToPreviousSnapshot() throws IOException {
+        Task task1 = taskManager.addTask(new Task("t1", "t1"));
+        taskManager.addTask(new Task("t2", "t2"));
+        taskManager.addTask(new Task("t3", "t3"));
+
+        File temporaryFile = new File(taskManager.getFile().getPath() + FileBackedTaskManager.TEMPORARY_SUFFIX);
+        assertFalse(temporaryFile.exists(), "Временный файл снимка не удален после записи.");
+        assertTrue(new File(taskManager.getFile().getPath() + ".1").exists(), "Предыдущий снимок не сохранен.");
+
+        // имитируем недописанный файл
+        Files.writeString(taskManager.getFile().toPath(), TaskParser.getHeader() + System.lineSeparator() + "3,TASK,t",
+                StandardCharsets.UTF_8);
+
+        FileBackedTaskManager taskManagerFromFile = FileBackedTaskManager.loadFromFile(taskManager.getFile());
+
+        assertEquals(2, taskManagerFromFile.getTasks().size(), "Не восстановлен предыдущий снимок.");
+        assertEquals(task1, taskManagerFromFile.getTask(task1.getId()), "Не восстановлен предыдущий снимок.");
+    }
+
+    @Test
+    void importIsSavedOnceAtTheEnd() {
+        List<Task> source = List.of(new Task(1, TaskStatus.NEW, "t1", "t1"), new Epic(2, TaskStatus.NEW, "e1", "e1"),
+                new Subtask(3, TaskStatus.NEW, "s1", "s1", 2));
+
+        assertEquals(3, taskManager.importTasks(source.iterator(), 1), "Импортированы не все задачи.");
+
+        // каждый снимок сдвигает предыдущий в резервную копию: копии нет - снимок был один
+        assertFalse(new File(taskManager.getFile().getPath() + ".1").exists(), "Импорт сохранялся по пакетам.");
+        FileBackedTaskManager taskManagerFromFile = FileBackedTaskManager.loadFromFile(taskManager.getFile());
+        assertEquals(taskManager.getSubtasks(), taskManagerFromFile.getSubtasks(), "Импорт не сохранен в файл.");
+    }
+}
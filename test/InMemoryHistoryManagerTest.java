@@ -1,4 +1,6 @@
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import kanban.model.Task;
 import kanban.model.TaskStatus;
@@ -74,4 +76,38 @@ class InMemoryHistoryManagerTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    void evictsLeastRecentlyViewedWhenFull() {
+        InMemoryHistoryManager boundedHistory = new InMemoryHistoryManager(3);
+        for (int id = 1; id <= 4; id++) {
+            boundedHistory.add(new Task(id, TaskStatus.NEW, "Task" + id, "Task" + id));
+        }
+        assertEquals(List.of(2, 3, 4), boundedHistory.getHistory().stream().map(Task::getId).toList(),
+                "Вытеснен не самый давний просмотр.");
+
+        // повторный просмотр делает задачу самой свежей, вытесняется следующая по давности
+        boundedHistory.add(new Task(2, TaskStatus.NEW, "Task2", "Task2"));
+        boundedHistory.remove(3);
+        boundedHistory.add(new Task(5, TaskStatus.NEW, "Task5", "Task5"));
+        boundedHistory.add(new Task(6, TaskStatus.NEW, "Task6", "Task6"));
+        assertEquals(List.of(2, 5, 6), boundedHistory.getHistory().stream().map(Task::getId).toList(),
+                "Неверный порядок истории после вытеснения.");
+    }
+
+    @Test
+    void idsOnlyHistoryResolvesTasksOnRead() {
+        InMemoryHistoryManager idsHistory = new InMemoryHistoryManager(10, InMemoryHistoryManager.StorageMode.IDS);
+        Map<Integer, Task> storage = new HashMap<>();
+        storage.put(1, new Task(1, TaskStatus.NEW, "Task1", "Task1"));
+        storage.put(2, new Task(2, TaskStatus.NEW, "Task2", "Task2"));
+        idsHistory.setTaskResolver(storage::get);
+
+        idsHistory.add(storage.get(2));
+        idsHistory.add(storage.get(1));
+        storage.put(2, new Task(2, TaskStatus.DONE, "Task2", "Task2"));
+
+        List<Task> history = idsHistory.getHistory();
+        assertEquals(List.of(2, 1), history.stream().map(Task::getId).toList(), "Неверный порядок истории.");
+        assertEquals(TaskStatus.DONE, history.getFirst().getStatus(), "История из id вернула не текущую задачу.");
+    }
+}
@@ -1,9 +1,59 @@
+import kanban.exception.TasksIntersectedException;
+import kanban.model.Task;
 import kanban.service.InMemoryTaskManager;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
     @BeforeEach
     void setUp() {
         taskManager = new InMemoryTaskManager();
     }
-}
\ No newline at end of file
+
+    @Test
+    void checkIntervalIntersectionOnLargeSchedule() {
+        final int count = 20_000;
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        // задачи идут встык друг за другом, пересечений нет
+        for (int i = 0; i < count; i++) {
+            taskManager.addTask(new Task("Task" + i, "Task" + i, start.plusMinutes(30L * i), Duration.ofMinutes(30)));
+        }
+        assertEquals(count, taskManager.getPrioritizedTasks().size(), "Добавлены не все задачи.");
+
+        assertThrows(TasksIntersectedException.class, () -> taskManager.addTask(new Task("Overlap", "Overlap",
+                start.plusMinutes(30L * count / 2 + 10), Duration.ofMinutes(5))),
+                "Возможно добавить задачу внутри интервала другой задачи.");
+        assertThrows(TasksIntersectedException.class, () -> taskManager.addTask(new Task("Overlap", "Overlap",
+                start.minusMinutes(10), Duration.ofMinutes(20))),
+                "Возможно добавить задачу, пересекающую первую задачу.");
+        assertThrows(TasksIntersectedException.class, () -> taskManager.addTask(new Task("Overlap", "Overlap",
+                start.plusMinutes(30L * count - 1), Duration.ofMinutes(20))),
+                "Возможно добавить задачу, пересекающую последнюю задачу.");
+        assertThrows(TasksIntersectedException.class, () -> taskManager.addTask(new Task("Overlap", "Overlap",
+                start.plusMinutes(15), Duration.ZERO)),
+                "Возможно добавить задачу нулевой длительности внутри интервала другой задачи.");
+
+        assertDoesNotThrow(() -> taskManager.addTask(new Task("Before", "Before",
+                start.minusMinutes(30), Duration.ofMinutes(30))), "Нельзя добавить задачу встык перед первой.");
+        assertDoesNotThrow(() -> taskManager.addTask(new Task("After", "After",
+                start.plusMinutes(30L * count), Duration.ofMinutes(30))), "Нельзя добавить задачу встык после последней.");
+
+        // задача может быть обновлена в пределах собственного интервала
+        Task lastTask = taskManager.getPrioritizedTasks().getLast();
+        Task updateTask = new Task(lastTask);
+        updateTask.setDuration(Duration.ofMinutes(60));
+        assertDoesNotThrow(() -> taskManager.updateTask(updateTask), "Задача пересекается сама с собой при обновлении.");
+
+        // после удаления задачи ее интервал освобождается
+        Task middleTask = taskManager.getPrioritizedTasks().get(count / 2);
+        taskManager.deleteTask(middleTask.getId());
+        assertDoesNotThrow(() -> taskManager.addTask(new Task("Freed", "Freed",
+                middleTask.getStartTime(), middleTask.getDuration())), "Интервал удаленной задачи не освободился.");
+    }
+}
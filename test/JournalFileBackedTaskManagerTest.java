@@ -0,0 +1,154 @@
+import kanban.exception.ManagerSaveException;
+import kanban.exception.TasksIntersectedException;
+import kanban.model.*;
+import kanban.service.FileBackedTaskManager;
+import kanban.service.FileBackedTaskManager.PersistenceMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+    @BeforeEach
+    void setUp() throws IOException {
+        File file = File.createTempFile("JournalFileBackedTaskManagerTest", ".csv");
+        taskManager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskManager.close();
+        taskManager.getJournalFile().delete();
+    }
+
+    private static void assertSameState(FileBackedTaskManager expected, FileBackedTaskManager actual) {
+        assertEquals(expected.getTasks().size(), actual.getTasks().size(), "Количество задач не совпадает.");
+        assertEquals(expected.getEpics().size(), actual.getEpics().size(), "Количество эпиков не совпадает.");
+        assertEquals(expected.getSubtasks().size(), actual.getSubtasks().size(), "Количество сабтасков не совпадает.");
+        for (Task task : expected.getTasks()) {
+            assertTrue(task.equalsByAllFields(actual.getTask(task.getId())), "Задача восстановлена неверно.");
+        }
+        for (Epic epic : expected.getEpics()) {
+            assertTrue(epic.equalsByAllFields(actual.getEpic(epic.getId())), "Эпик восстановлен неверно.");
+        }
+        for (Subtask subtask : expected.getSubtasks()) {
+            assertTrue(subtask.equalsByAllFields(actual.getSubtask(subtask.getId())), "Сабтаск восстановлен неверно.");
+        }
+        assertEquals(expected.getPrioritizedTasks(), actual.getPrioritizedTasks(), "Порядок задач не совпадает.");
+    }
+
+    @Test
+    void mutationsAreAppendedToJournalAndReplayedOnLoad() {
+        Task task = taskManager.addTask(new Task("t1", "t1",
+                LocalDateTime.of(2024, 5, 1, 10, 0), Duration.ofMinutes(30)));
+        taskManager.addTask(new Task("t2", "t2"));
+        Epic epic = taskManager.addEpic(new Epic("e1", "e1"));
+        Epic epic2 = taskManager.addEpic(new Epic("e2", "e2"));
+        Subtask subtask = taskManager.addSubtask(new Subtask("s1", "s1", epic.getId(),
+                LocalDateTime.of(2024, 5, 2, 10, 0), Duration.ofMinutes(45)));
+        taskManager.addSubtask(new Subtask("s2", "s2", epic2.getId()));
+
+        Task updateTask = new Task(task);
+        updateTask.setStatus(TaskStatus.DONE);
+        taskManager.updateTask(updateTask);
+        taskManager.updateSubtask(new Subtask(subtask.getId(), TaskStatus.IN_PROGRESS, "s1 moved", "s1",
+                epic2.getId(), subtask.getStartTime(), subtask.getDuration()));
+        taskManager.deleteEpic(epic.getId());
+
+        assertEquals(0L, taskManager.getFile().length(), "Снимок перезаписывается при каждом изменении.");
+        assertNotEquals(0L, taskManager.getJournalFile().length(), "Изменения не попадают в журнал.");
+
+        taskManager.close();
+        FileBackedTaskManager taskManagerFromFile = FileBackedTaskManager.loadFromFile(taskManager.getFile(),
+                PersistenceMode.JOURNAL);
+        assertSameState(taskManager, taskManagerFromFile);
+        assertFalse(taskManager.getJournalFile().exists(), "Примененный журнал не свернут в снимок.");
+
+        taskManager.deleteAllSubtasks();
+        taskManager.deleteAllTasks();
+        taskManager.close();
+        assertSameState(taskManager, FileBackedTaskManager.loadFromFile(taskManager.getFile()));
+    }
+
+    @Test
+    void journalIsCompactedInBackground() {
+        taskManager.setJournalCompactionThreshold(512);
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 200; i++) {
+            taskManager.addTask(new Task("Task" + i, "Task" + i, startTime.plusHours(i), Duration.ofMinutes(30)));
+        }
+        taskManager.deleteTask(taskManager.getTasks().getFirst().getId());
+        taskManager.awaitCompaction();
+
+        assertNotEquals(0L, taskManager.getFile().length(), "Снимок не записан при сжатии журнала.");
+        assertTrue(taskManager.getJournalFile().length() <= 1024, "Журнал не сжимается.");
+
+        taskManager.close();
+        assertSameState(taskManager, FileBackedTaskManager.loadFromFile(taskManager.getFile()));
+    }
+
+    @Test
+    void failedCompactionIsReportedAndItsJournalIsKept() throws IOException {
+        taskManager.setJournalCompactionThreshold(512);
+        // каталог на месте временного файла снимка не дает записать снимок
+        File temporaryFile = new File(taskManager.getFile().getPath() + FileBackedTaskManager.TEMPORARY_SUFFIX);
+        assertTrue(temporaryFile.mkdir(), "Не удалось создать каталог на месте временного файла.");
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 100; i++) {
+            taskManager.addTask(new Task("Task" + i, "Task" + i, startTime.plusHours(i), Duration.ofMinutes(30)));
+        }
+        assertThrows(ManagerSaveException.class, taskManager::awaitCompaction,
+                "Неудачное сжатие журнала не сообщило об ошибке.");
+        File compactingJournalFile = new File(taskManager.getFile().getPath()
+                + FileBackedTaskManager.COMPACTING_JOURNAL_SUFFIX);
+        assertTrue(compactingJournalFile.exists(), "Журнал неудачного сжатия удален.");
+
+        assertTrue(temporaryFile.delete(), "Не удалось удалить каталог.");
+        for (int i = 100; i < 200; i++) {
+            taskManager.addTask(new Task("Task" + i, "Task" + i, startTime.plusHours(i), Duration.ofMinutes(30)));
+        }
+        taskManager.awaitCompaction();
+        assertFalse(compactingJournalFile.exists(), "Журнал сжатия не удален после успешного сжатия.");
+
+        // два неудачных сжатия подряд: журнал второго не должен затереть журнал первого
+        assertTrue(temporaryFile.mkdir(), "Не удалось создать каталог на месте временного файла.");
+        for (int i = 200; i < 400; i++) {
+            taskManager.addTask(new Task("Task" + i, "Task" + i, startTime.plusHours(i), Duration.ofMinutes(30)));
+            if (i == 299) {
+                assertThrows(ManagerSaveException.class, taskManager::awaitCompaction);
+            }
+        }
+        assertThrows(ManagerSaveException.class, taskManager::awaitCompaction);
+        taskManager.close();
+        assertTrue(temporaryFile.delete(), "Не удалось удалить каталог.");
+        assertSameState(taskManager, FileBackedTaskManager.loadFromFile(taskManager.getFile()));
+    }
+
+    @Test
+    void batchIsJournaledOnceAndOnlyOnSuccess() throws IOException {
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        taskManager.applyBatch(List.of(
+                new Operation(Operation.Type.ADD, new Epic("Epic", "Epic")),
+                new Operation(Operation.Type.ADD, new Subtask("Subtask", "Subtask", -1, start, Duration.ofHours(1))),
+                new Operation(Operation.Type.ADD, new Task("Task", "Task", start.plusHours(1), Duration.ofHours(1)))));
+        assertEquals(3, Files.readAllLines(taskManager.getJournalFile().toPath()).size(),
+                "Записи пакета не попали в журнал.");
+
+        assertThrows(TasksIntersectedException.class, () -> taskManager.applyBatch(List.of(
+                new Operation(Operation.Type.ADD, new Task("New", "New")),
+                new Operation(Operation.Type.ADD, new Task("Overlap", "Overlap", start, Duration.ofHours(1))))));
+        assertEquals(3, Files.readAllLines(taskManager.getJournalFile().toPath()).size(),
+                "Откатившийся пакет записан в журнал.");
+
+        assertSameState(taskManager, FileBackedTaskManager.loadFromFile(taskManager.getFile(), PersistenceMode.JOURNAL));
+    }
+}
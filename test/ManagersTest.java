@@ -1,3 +1,4 @@
+import kanban.service.FileBackedTaskManager;
 import kanban.service.HistoryManager;
 import kanban.service.Managers;
 import kanban.service.TaskManager;
@@ -14,6 +15,13 @@ class ManagersTest {
         assertNotNull(taskManager, "Должен возвращаться проинициализированный TaskManager.");
     }
 
+    @Test
+    void binaryTaskManagerShouldNotBeNull() {
+        TaskManager taskManager = Managers.getDefault(FileBackedTaskManager.SnapshotFormat.BINARY);
+
+        assertNotNull(taskManager, "Должен возвращаться проинициализированный TaskManager.");
+    }
+
     @Test
     void historyManagerShouldNotBeNull() {
         HistoryManager historyManager = Managers.getDefaultHistory();
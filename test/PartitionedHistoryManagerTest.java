@@ -0,0 +1,100 @@
+import kanban.model.Task;
+import kanban.model.TaskStatus;
+import kanban.service.InMemoryHistoryManager;
+import kanban.service.PartitionedHistoryManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PartitionedHistoryManagerTest {
+    private PartitionedHistoryManager historyManager;
+
+    @BeforeEach
+    void setUp() {
+        historyManager = new PartitionedHistoryManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        PartitionedHistoryManager.setCurrentClient(null);
+    }
+
+    private List<Integer> historyOf(String client) {
+        PartitionedHistoryManager.setCurrentClient(client);
+        return historyManager.getHistory().stream().map(Task::getId).toList();
+    }
+
+    @Test
+    void clientsHaveSeparateHistories() {
+        PartitionedHistoryManager.setCurrentClient("first");
+        historyManager.add(new Task(1, TaskStatus.NEW, "Task1", "Task1"));
+        PartitionedHistoryManager.setCurrentClient("second");
+        historyManager.add(new Task(2, TaskStatus.NEW, "Task2", "Task2"));
+        historyManager.add(new Task(1, TaskStatus.NEW, "Task1", "Task1"));
+
+        assertEquals(List.of(1), historyOf("first"), "Неверная история первого клиента.");
+        assertEquals(List.of(2, 1), historyOf("second"), "Неверная история второго клиента.");
+        assertEquals(List.of(), historyOf(null), "Просмотры клиентов попали в общую историю.");
+
+        historyManager.remove(1);
+        assertEquals(List.of(), historyOf("first"), "Задача не удалена из истории первого клиента.");
+        assertEquals(List.of(2), historyOf("second"), "Задача не удалена из истории второго клиента.");
+    }
+
+    @Test
+    void idlePartitionsAreEvicted() throws InterruptedException {
+        historyManager.setIdleTimeout(Duration.ofMillis(50));
+        PartitionedHistoryManager.setCurrentClient("idle");
+        historyManager.add(new Task(1, TaskStatus.NEW, "Task1", "Task1"));
+        PartitionedHistoryManager.setCurrentClient(null);
+        historyManager.add(new Task(2, TaskStatus.NEW, "Task2", "Task2"));
+        assertEquals(2, historyManager.getPartitionsCount(), "Неверное количество разделов.");
+
+        Thread.sleep(100);
+        assertEquals(List.of(2), historyOf(null), "Общая история вытеснена.");
+        assertEquals(1, historyManager.getPartitionsCount(), "Простаивающий раздел не удален.");
+    }
+
+    @Test
+    void leastRecentlyUsedPartitionIsEvictedOverLimit() {
+        historyManager.setMaxPartitions(2);
+        PartitionedHistoryManager.setCurrentClient("first");
+        historyManager.add(new Task(1, TaskStatus.NEW, "Task1", "Task1"));
+        PartitionedHistoryManager.setCurrentClient("second");
+        historyManager.add(new Task(2, TaskStatus.NEW, "Task2", "Task2"));
+        // первый клиент обращался позже второго, поэтому вытесняется второй
+        assertEquals(List.of(1), historyOf("first"), "Неверная история первого клиента.");
+        PartitionedHistoryManager.setCurrentClient("third");
+        historyManager.add(new Task(3, TaskStatus.NEW, "Task3", "Task3"));
+
+        assertEquals(2, historyManager.getPartitionsCount(), "Число разделов превысило лимит.");
+        assertEquals(List.of(1), historyOf("first"), "Вытеснен недавно использованный раздел.");
+        assertEquals(List.of(3), historyOf("third"), "Неверная история нового клиента.");
+        assertEquals(2, historyManager.getPartitionsCount(), "Число разделов превысило лимит.");
+    }
+
+    @Test
+    void removeReachesOnlyPartitionsWithTask() {
+        historyManager = new PartitionedHistoryManager(1, InMemoryHistoryManager.StorageMode.COPIES);
+        PartitionedHistoryManager.setCurrentClient("first");
+        historyManager.add(new Task(1, TaskStatus.NEW, "Task1", "Task1"));
+        // задача 1 вытеснена из истории первого клиента задачей 2
+        historyManager.add(new Task(2, TaskStatus.NEW, "Task2", "Task2"));
+        PartitionedHistoryManager.setCurrentClient("second");
+        historyManager.add(new Task(1, TaskStatus.NEW, "Task1", "Task1"));
+
+        historyManager.remove(1);
+        assertEquals(List.of(2), historyOf("first"), "Удалена задача, которой не было в истории.");
+        assertEquals(List.of(), historyOf("second"), "Задача не удалена из истории второго клиента.");
+
+        PartitionedHistoryManager.setCurrentClient("first");
+        historyManager.add(new Task(1, TaskStatus.NEW, "Task1", "Task1"));
+        historyManager.remove(1);
+        assertEquals(List.of(), historyOf("first"), "Повторно просмотренная задача не удалена.");
+    }
+}
@@ -6,7 +6,11 @@ import kanban.service.TaskManager;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 
@@ -123,6 +127,18 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertTrue(taskManager.getTasks().isEmpty(), "Добавлена задача через метод обновления.");
     }
 
+    @Test
+    void nullIdIsNotFound() {
+        taskManager.addTask(new Task("Test Task", "Test task desc"));
+
+        assertThrows(NotFoundException.class, () -> taskManager.getTask(null), "Найдена задача с id null.");
+        assertThrows(NotFoundException.class, () -> taskManager.deleteTask(null), "Удалена задача с id null.");
+        assertThrows(NotFoundException.class, () -> taskManager.getSubtask(null), "Найден сабтаск с id null.");
+        assertThrows(NotFoundException.class, () -> taskManager.deleteEpic(null), "Удален эпик с id null.");
+        assertThrows(NotFoundException.class, () -> taskManager.updateTask(new Task("Task", "Task")),
+                "Обновлена задача без id.");
+    }
+
     @Test
     void isNotPossibleToAddSubtaskByUpdate() {
         Epic epic = new Epic(100, "Test Epic", "Test Epic description");
@@ -196,4 +212,464 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertThrows(TasksIntersectedException.class, () -> taskManager.updateSubtask(updateSubtask1),
                 "Возможно добавить задачу с пересекающимся интервалом");
     }
-}
\ No newline at end of file
+
+    private static void assertEpicFieldsMatchSubtasks(Epic epic, List<Subtask> allSubtasks) {
+        List<Subtask> epicSubtasks = allSubtasks.stream()
+                .filter(subtask -> subtask.epic.equals(epic.getId()))
+                .toList();
+
+        TaskStatus expectedStatus = TaskStatus.NEW;
+        if (!epicSubtasks.isEmpty()) {
+            if (epicSubtasks.stream().allMatch(subtask -> subtask.getStatus() == TaskStatus.NEW)) {
+                expectedStatus = TaskStatus.NEW;
+            } else if (epicSubtasks.stream().allMatch(subtask -> subtask.getStatus() == TaskStatus.DONE)) {
+                expectedStatus = TaskStatus.DONE;
+            } else {
+                expectedStatus = TaskStatus.IN_PROGRESS;
+            }
+        }
+        LocalDateTime expectedStartTime = epicSubtasks.stream()
+                .map(Subtask::getStartTime)
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+        Duration expectedDuration = epicSubtasks.stream()
+                .map(Subtask::getDuration)
+                .filter(Objects::nonNull)
+                .reduce(Duration::plus)
+                .orElse(null);
+        LocalDateTime expectedEndTime = epicSubtasks.stream()
+                .map(Subtask::getEndTime)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+
+        assertEquals(epicSubtasks.size(), epic.getSubtasks().size(), "Неверный список сабтасков эпика.");
+        assertEquals(expectedStatus, epic.getStatus(), "Неверный расчет Status эпика.");
+        assertEquals(expectedStartTime, epic.getStartTime(), "Неверный расчет StartTime эпика.");
+        assertEquals(expectedDuration, epic.getDuration(), "Неверный расчет Duration эпика.");
+        assertEquals(expectedEndTime, epic.getEndTime(), "Неверный расчет EndTime эпика.");
+    }
+
+    @Test
+    void epicCalculatedFieldsMatchFullRecalculation() {
+        final Random random = new Random(42);
+        final LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        final TaskStatus[] statuses = TaskStatus.values();
+        int freeSlot = 0;
+
+        List<Integer> epicIds = List.of(
+                taskManager.addEpic(new Epic("Epic1", "Epic1")).getId(),
+                taskManager.addEpic(new Epic("Epic2", "Epic2")).getId(),
+                taskManager.addEpic(new Epic("Epic3", "Epic3")).getId());
+
+        for (int i = 0; i < 300; i++) {
+            List<Subtask> subtasks = taskManager.getSubtasks();
+            int operation = subtasks.isEmpty() ? 0 : random.nextInt(3);
+            // каждая подзадача со временем получает собственный часовой слот, поэтому пересечений нет
+            LocalDateTime startTime = random.nextInt(4) == 0 ? null : baseTime.plusHours(freeSlot++);
+            Duration duration = random.nextInt(4) == 0 ? null : Duration.ofMinutes(1 + random.nextInt(60));
+            Integer epicId = epicIds.get(random.nextInt(epicIds.size()));
+            TaskStatus status = statuses[random.nextInt(statuses.length)];
+
+            switch (operation) {
+                case 0 -> taskManager.addSubtask(new Subtask(0, status, "Subtask" + i, "Subtask" + i, epicId,
+                        startTime, duration));
+                case 1 -> {
+                    Subtask subtask = subtasks.get(random.nextInt(subtasks.size()));
+                    taskManager.updateSubtask(new Subtask(subtask.getId(), status, subtask.getName(),
+                            subtask.getDescription(), epicId, startTime, duration));
+                }
+                default -> taskManager.deleteSubtask(subtasks.get(random.nextInt(subtasks.size())).getId());
+            }
+
+            List<Subtask> allSubtasks = taskManager.getSubtasks();
+            taskManager.getEpics().forEach(epic -> assertEpicFieldsMatchSubtasks(epic, allSubtasks));
+        }
+
+        taskManager.deleteAllSubtasks();
+        taskManager.getEpics().forEach(epic -> assertEpicFieldsMatchSubtasks(epic, List.of()));
+    }
+
+    @Test
+    void prioritizedTasksKeepEveryTaskWithSameStartTime() {
+        final LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        final Comparator<Task> scheduleOrder = Comparator.comparing(Task::getStartTime)
+                .thenComparing(Task::getTaskType)
+                .thenComparing(Task::getId);
+
+        for (int seed = 1; seed <= 5; seed++) {
+            final Random random = new Random(seed);
+            taskManager.deleteAllTasks();
+            taskManager.deleteAllEpics();
+            for (int i = 0; i < 200; i++) {
+                // мало различных времен начала и нулевая или пустая длительность: много совпадений без пересечений
+                LocalDateTime startTime = random.nextInt(5) == 0 ? null : baseTime.plusHours(random.nextInt(4));
+                Duration duration = random.nextBoolean() ? null : Duration.ZERO;
+                List<Task> tasks = taskManager.getTasks();
+                List<Subtask> subtasks = taskManager.getSubtasks();
+                List<Epic> epics = taskManager.getEpics();
+
+                switch (random.nextInt(7)) {
+                    case 0 -> taskManager.addTask(new Task("Task" + i, "Task" + i, startTime, duration));
+                    case 1 -> {
+                        if (tasks.isEmpty()) continue;
+                        Task task = tasks.get(random.nextInt(tasks.size()));
+                        taskManager.updateTask(new Task(task.getId(), task.getStatus(), task.getName(),
+                                task.getDescription(), startTime, duration));
+                    }
+                    case 2 -> {
+                        if (tasks.isEmpty()) continue;
+                        taskManager.deleteTask(tasks.get(random.nextInt(tasks.size())).getId());
+                    }
+                    case 3 -> {
+                        if (epics.isEmpty() || random.nextInt(3) == 0) {
+                            taskManager.addEpic(new Epic("Epic" + i, "Epic" + i));
+                        } else {
+                            taskManager.deleteEpic(epics.get(random.nextInt(epics.size())).getId());
+                        }
+                    }
+                    case 4, 5 -> {
+                        if (epics.isEmpty()) continue;
+                        Integer epicId = epics.get(random.nextInt(epics.size())).getId();
+                        if (subtasks.isEmpty() || random.nextBoolean()) {
+                            taskManager.addSubtask(new Subtask(0, TaskStatus.NEW, "Subtask" + i, "Subtask" + i,
+                                    epicId, startTime, duration));
+                        } else {
+                            Subtask subtask = subtasks.get(random.nextInt(subtasks.size()));
+                            taskManager.updateSubtask(new Subtask(subtask.getId(), subtask.getStatus(),
+                                    subtask.getName(), subtask.getDescription(), epicId, startTime, duration));
+                        }
+                    }
+                    default -> {
+                        if (subtasks.isEmpty()) continue;
+                        taskManager.deleteSubtask(subtasks.get(random.nextInt(subtasks.size())).getId());
+                    }
+                }
+
+                List<Task> expected = new ArrayList<>(taskManager.getTasks());
+                expected.addAll(taskManager.getSubtasks());
+                expected.removeIf(task -> task.getStartTime() == null);
+                expected.sort(scheduleOrder);
+                assertEquals(expected, taskManager.getPrioritizedTasks(), "Приоритетный список потерял задачи.");
+
+                LocalDateTime from = baseTime.plusHours(random.nextInt(4));
+                LocalDateTime to = from.plusHours(1 + random.nextInt(3));
+                assertEquals(expected.stream()
+                                .filter(task -> !task.getStartTime().isBefore(from) && task.getStartTime().isBefore(to))
+                                .toList(),
+                        taskManager.getPrioritizedTasks(from, to, Integer.MAX_VALUE), "Неверные задачи промежутка.");
+            }
+        }
+    }
+
+    @Test
+    void freeSlotsSkipOccupiedIntervals() {
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        taskManager.addTask(new Task("Task1", "Task1", start, Duration.ofMinutes(60)));
+        taskManager.addTask(new Task("Task2", "Task2", start.plusMinutes(90), Duration.ofMinutes(30)));
+        Epic epic = taskManager.addEpic(new Epic("Epic", "Epic"));
+        taskManager.addSubtask(new Subtask("Subtask", "Subtask", epic.getId(), start.plusMinutes(180),
+                Duration.ofMinutes(60)));
+
+        assertEquals(List.of(new TimeSlot(start.plusMinutes(60), start.plusMinutes(90)),
+                        new TimeSlot(start.plusMinutes(120), start.plusMinutes(180)),
+                        new TimeSlot(start.plusMinutes(240), null)),
+                taskManager.findFreeSlots(Duration.ofMinutes(30), start.plusMinutes(30), null, 10),
+                "Неверные свободные промежутки.");
+        assertEquals(List.of(new TimeSlot(start.plusMinutes(120), start.plusMinutes(180))),
+                taskManager.findFreeSlots(Duration.ofMinutes(45), start, start.plusMinutes(200), 10),
+                "Неверные промежутки с учетом длительности и границы.");
+        assertEquals(List.of(new TimeSlot(start.plusMinutes(60), start.plusMinutes(90))),
+                taskManager.findFreeSlots(Duration.ofMinutes(30), start, null, 1), "Не соблюдается limit.");
+
+        TimeSlot slot = taskManager.findFreeSlots(Duration.ofMinutes(45), start, null, 1).getFirst();
+        assertDoesNotThrow(() -> taskManager.addTask(new Task("Task3", "Task3", slot.getStart(),
+                Duration.ofMinutes(45))), "Задача в свободном промежутке пересекается с другими.");
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.findFreeSlots(Duration.ZERO, start, null, 1), "Принята нулевая длительность.");
+    }
+
+    @Test
+    void pagesFollowIdAndStartTimeOrder() {
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 10; i++) {
+            // время начала идет в обратном порядке относительно id
+            taskManager.addTask(new Task("Task" + i, "Task" + i, start.minusHours(i), Duration.ofMinutes(30)));
+        }
+        List<Task> tasks = taskManager.getTasks();
+
+        List<Task> firstPage = taskManager.getTasks(null, 4);
+        assertEquals(tasks.subList(0, 4), firstPage, "Неверная первая страница задач.");
+        List<Task> lastPage = taskManager.getTasks(firstPage.getLast().getId(), 100);
+        assertEquals(tasks.subList(4, 10), lastPage, "Неверная последняя страница задач.");
+        assertTrue(taskManager.getTasks(tasks.getLast().getId(), 4).isEmpty(), "После последней задачи есть задачи.");
+
+        List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+        List<Task> prioritizedPage = taskManager.getPrioritizedTasks(prioritizedTasks.get(2).getStartTime(), 3);
+        assertEquals(prioritizedTasks.subList(3, 6), prioritizedPage, "Неверная страница приоритетного списка.");
+        assertEquals(prioritizedTasks.subList(2, 5), taskManager.getPrioritizedTasks(start.minusHours(7),
+                start.minusHours(4), 10), "Неверные задачи промежутка.");
+        assertEquals(prioritizedTasks.subList(2, 4), taskManager.getPrioritizedTasks(start.minusHours(7),
+                start.minusHours(4), 2), "Не соблюдается limit в промежутке.");
+        assertEquals(prioritizedTasks.subList(8, 10), taskManager.getPrioritizedTasks(start.minusHours(1),
+                null, 10), "Неверные задачи после начала промежутка.");
+        assertEquals(prioritizedTasks.subList(0, 1), taskManager.getPrioritizedTasks(null,
+                start.minusMinutes(8 * 60 + 1), 10), "Неверные задачи до конца промежутка.");
+        assertTrue(taskManager.getPrioritizedTasks(start, start.minusHours(1), 10).isEmpty(),
+                "Пустой промежуток содержит задачи.");
+
+        tasks.forEach(task -> taskManager.getTask(task.getId()));
+        assertEquals(tasks.subList(8, 10), taskManager.getHistory(tasks.get(7).getId(), 5),
+                "Неверная страница истории.");
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getTasks(null, -1),
+                "Отрицательный размер страницы должен приводить к исключению.");
+    }
+
+    @Test
+    void revisionGrowsOnlyOnChanges() {
+        long revision = taskManager.getRevision();
+        Task task = taskManager.addTask(new Task("Task", "Task"));
+        assertTrue(taskManager.getRevision() > revision, "Ревизия не выросла после добавления.");
+
+        revision = taskManager.getRevision();
+        taskManager.getTask(task.getId());
+        taskManager.getTasks();
+        taskManager.getPrioritizedTasks();
+        assertEquals(revision, taskManager.getRevision(), "Ревизия изменилась при чтении.");
+
+        taskManager.deleteTask(task.getId());
+        assertTrue(taskManager.getRevision() > revision, "Ревизия не выросла после удаления.");
+        revision = taskManager.getRevision();
+        assertThrows(NotFoundException.class, () -> taskManager.deleteTask(task.getId()));
+        assertEquals(revision, taskManager.getRevision(), "Ревизия изменилась после неудачного удаления.");
+    }
+
+    @Test
+    void applyBatchAppliesAllOperations() {
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task oldTask = taskManager.addTask(new Task("Old", "Old"));
+
+        List<Task> results = taskManager.applyBatch(List.of(
+                new Operation(Operation.Type.ADD, new Epic("Epic", "Epic")),
+                // -1 - эпик из первой операции пакета
+                new Operation(Operation.Type.ADD, new Subtask("Subtask1", "Subtask1", -1, start, Duration.ofHours(1))),
+                new Operation(Operation.Type.ADD, new Subtask("Subtask2", "Subtask2", -1,
+                        start.plusHours(2), Duration.ofHours(1))),
+                new Operation(Operation.Type.ADD, new Task("Task", "Task", start.plusHours(1), Duration.ofHours(1))),
+                new Operation(Operation.Type.DELETE, TaskTypes.TASK, oldTask.getId())));
+
+        assertEquals(5, results.size(), "Неверное количество результатов пакета.");
+        assertNull(results.get(4), "Результат удаления должен быть null.");
+        Epic epic = taskManager.getEpic(results.get(0).getId());
+        assertEquals(List.of(results.get(1).getId(), results.get(2).getId()), epic.getSubtasks(),
+                "Сабтаски не привязаны к эпику из пакета.");
+        assertEquals(start, epic.getStartTime(), "Расчетные поля эпика не пересчитаны.");
+        assertEquals(start.plusHours(3), epic.getEndTime(), "Расчетные поля эпика не пересчитаны.");
+        assertEquals(List.of(results.get(3)), taskManager.getTasks(), "Неверный список задач после пакета.");
+        assertEquals(3, taskManager.getPrioritizedTasks().size(), "Неверный приоритетный список после пакета.");
+    }
+
+    @Test
+    void applyBatchRollsBackOnFailure() {
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Epic epic = taskManager.addEpic(new Epic("Epic", "Epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask("Subtask", "Subtask", epic.getId(), start,
+                Duration.ofHours(1)));
+        Task task = taskManager.addTask(new Task("Task", "Task", start.plusHours(2), Duration.ofHours(1)));
+        taskManager.getTask(task.getId());
+        List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+        Epic epicBefore = new Epic(epic);
+
+        Subtask doneSubtask = new Subtask(subtask.getId(), TaskStatus.DONE, "Subtask", "Subtask", epic.getId(),
+                start.plusHours(5), Duration.ofHours(1));
+        assertThrows(TasksIntersectedException.class, () -> taskManager.applyBatch(List.of(
+                new Operation(Operation.Type.UPDATE, doneSubtask),
+                new Operation(Operation.Type.DELETE, TaskTypes.TASK, task.getId()),
+                new Operation(Operation.Type.ADD, new Task("New", "New", start.plusHours(4), Duration.ofHours(1))),
+                // пересекается с обновленной сабтаской
+                new Operation(Operation.Type.ADD, new Task("Overlap", "Overlap", start.plusHours(5),
+                        Duration.ofMinutes(30))))));
+
+        assertEquals(List.of(task), taskManager.getTasks(), "Задачи не откатились.");
+        assertTrue(subtask.equalsByAllFields(taskManager.getSubtasks().getFirst()), "Сабтаск не откатился.");
+        assertTrue(epicBefore.equalsByAllFields(taskManager.getEpics().getFirst()), "Эпик не откатился.");
+        assertEquals(prioritizedTasks, taskManager.getPrioritizedTasks(), "Приоритетный список не откатился.");
+        assertEquals(List.of(task), taskManager.getHistory(), "История изменилась после отката.");
+        assertThrows(TasksIntersectedException.class, () -> taskManager.addTask(new Task("Overlap", "Overlap",
+                start.plusMinutes(30), Duration.ofMinutes(10))), "Индекс пересечений не восстановлен.");
+        assertEquals(task.getId() + 1, taskManager.addTask(new Task("Next", "Next")).getId(),
+                "Счетчик id не откатился.");
+    }
+
+    @Test
+    void applyBatchRollsBackEpicChanges() {
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Epic first = taskManager.addEpic(new Epic("First", "First"));
+        Epic second = taskManager.addEpic(new Epic("Second", "Second"));
+        Subtask moved = taskManager.addSubtask(new Subtask("Moved", "Moved", first.getId(), start,
+                Duration.ofHours(1)));
+        Subtask cascaded = taskManager.addSubtask(new Subtask("Cascaded", "Cascaded", second.getId(),
+                start.plusHours(2), Duration.ofHours(1)));
+        List<Epic> epicsBefore = taskManager.getEpics();
+        List<Subtask> subtasksBefore = taskManager.getSubtasks();
+        List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+
+        Subtask movedToSecond = new Subtask(moved.getId(), TaskStatus.DONE, "Moved", "Moved", second.getId(),
+                start, Duration.ofHours(1));
+        assertThrows(NotFoundException.class, () -> taskManager.applyBatch(List.of(
+                new Operation(Operation.Type.UPDATE, new Epic(first.getId(), TaskStatus.NEW, "Renamed", "Renamed")),
+                new Operation(Operation.Type.UPDATE, movedToSecond),
+                new Operation(Operation.Type.DELETE, TaskTypes.EPIC, second.getId()),
+                new Operation(Operation.Type.DELETE, TaskTypes.TASK, 999))));
+
+        assertEquals(epicsBefore.size(), taskManager.getEpics().size(), "Удаленный эпик не восстановлен.");
+        for (int i = 0; i < epicsBefore.size(); i++) {
+            assertTrue(epicsBefore.get(i).equalsByAllFields(taskManager.getEpics().get(i)), "Эпик не откатился.");
+        }
+        for (int i = 0; i < subtasksBefore.size(); i++) {
+            assertTrue(subtasksBefore.get(i).equalsByAllFields(taskManager.getSubtasks().get(i)),
+                    "Сабтаск не откатился.");
+        }
+        assertEquals(prioritizedTasks, taskManager.getPrioritizedTasks(), "Приоритетный список не откатился.");
+
+        // агрегаты эпиков восстановлены: статус пересчитывается по исходным подзадачам
+        taskManager.updateSubtask(new Subtask(cascaded.getId(), TaskStatus.DONE, "Cascaded", "Cascaded",
+                second.getId(), start.plusHours(2), Duration.ofHours(1)));
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(second.getId()).getStatus(), "Агрегат эпика не откатился.");
+        assertEquals(TaskStatus.NEW, taskManager.getEpic(first.getId()).getStatus(), "Агрегат эпика не откатился.");
+    }
+
+    @Test
+    void addedTaskWithCollidingIdIsCheckedForIntersections() {
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task task = taskManager.addTask(new Task("Task", "Task", start, Duration.ofHours(1)));
+        // id в источнике совпадает с id существующей задачи, с которой пересекается импортируемая
+        List<Task> source = List.of(new Task(task.getId(), TaskStatus.NEW, "Overlap", "Overlap",
+                start.plusMinutes(30), Duration.ofHours(1)));
+
+        assertThrows(TasksIntersectedException.class, () -> taskManager.importTasks(source.iterator(), 10),
+                "Импортирована пересекающаяся задача.");
+        assertThrows(TasksIntersectedException.class, () -> taskManager.applyBatch(List.of(
+                new Operation(Operation.Type.ADD, source.getFirst()))), "Добавлена пересекающаяся задача.");
+        assertEquals(List.of(task), taskManager.getTasks(), "Пересекающаяся задача добавилась.");
+        assertEquals(List.of(new TimeSlot(start.plusHours(1), null)),
+                taskManager.findFreeSlots(Duration.ofMinutes(30), start, null, 10), "Индекс пересечений нарушен.");
+    }
+
+    @Test
+    void updateOfChangedStoredTaskFreesOldInterval() {
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task task = taskManager.addTask(new Task("Task", "Task", start, Duration.ofHours(1)));
+        // addTask возвращает хранимый экземпляр: время меняется до updateTask
+        task.setStartTime(start.plusHours(5));
+        taskManager.updateTask(task);
+
+        assertDoesNotThrow(() -> taskManager.addTask(new Task("Freed", "Freed", start, Duration.ofHours(1))),
+                "Старый интервал задачи остался в индексе пересечений.");
+        assertThrows(TasksIntersectedException.class, () -> taskManager.addTask(new Task("Overlap", "Overlap",
+                start.plusHours(5), Duration.ofMinutes(30))), "Новый интервал задачи не попал в индекс.");
+    }
+
+    @Test
+    void updateOfChangedStoredSubtaskRecalculatesEpic() {
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Epic epic = taskManager.addEpic(new Epic("Epic", "Epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask("Subtask", "Subtask", epic.getId(), start,
+                Duration.ofHours(1)));
+        // addSubtask возвращает хранимый экземпляр: поля меняются до updateSubtask
+        subtask.setStatus(TaskStatus.DONE);
+        subtask.setStartTime(start.plusHours(2));
+        taskManager.updateSubtask(subtask);
+
+        Epic updatedEpic = taskManager.getEpic(epic.getId());
+        assertEquals(TaskStatus.DONE, updatedEpic.getStatus(), "Статус эпика не пересчитан.");
+        assertEquals(start.plusHours(2), updatedEpic.getStartTime(), "Начало эпика не пересчитано.");
+        assertEquals(start.plusHours(3), updatedEpic.getEndTime(), "Окончание эпика не пересчитано.");
+    }
+
+    @Test
+    void importTasksRemapsEpicsAcrossBatches() {
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        taskManager.addTask(new Task("Existing", "Existing"));
+        List<Task> source = List.of(
+                new Epic(10, TaskStatus.NEW, "Epic", "Epic"),
+                new Task(11, TaskStatus.DONE, "Task", "Task", start, Duration.ofHours(1)),
+                new Subtask(12, TaskStatus.DONE, "Subtask", "Subtask", 10, start.plusHours(2), Duration.ofHours(1)));
+
+        // по два элемента в пакете: подзадача ссылается на эпик из предыдущего пакета
+        assertEquals(3, taskManager.importTasks(source.iterator(), 2), "Импортированы не все задачи.");
+        Epic epic = taskManager.getEpics().getFirst();
+        Subtask subtask = taskManager.getSubtasks().getFirst();
+        assertEquals(epic.getId(), subtask.epic, "Подзадача не привязана к новому эпику.");
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Статус эпика не пересчитан.");
+        assertEquals(2, taskManager.getTasks().size(), "Неверное количество задач.");
+
+        List<Task> orphan = List.of(new Subtask(20, TaskStatus.NEW, "Orphan", "Orphan", 99));
+        assertThrows(NotFoundException.class, () -> taskManager.importTasks(orphan.iterator(), 10),
+                "Подзадача без эпика импортирована.");
+        assertEquals(1, taskManager.getSubtasks().size(), "Подзадача без эпика добавилась.");
+    }
+
+    @Test
+    void listViewsAreSharedUntilChanged() {
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task task = taskManager.addTask(new Task("Task", "Task", start, Duration.ofHours(1)));
+        List<Task> tasks = taskManager.getTasks();
+        List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+
+        assertSame(tasks, taskManager.getTasks(), "Список задач копируется при каждом чтении.");
+        assertSame(prioritizedTasks, taskManager.getPrioritizedTasks(), "Приоритетный список копируется.");
+        assertThrows(UnsupportedOperationException.class, () -> tasks.add(new Task("New", "New")),
+                "Список задач можно изменить снаружи.");
+
+        Task newTask = taskManager.addTask(new Task("New", "New", start.plusHours(1), Duration.ofHours(1)));
+        assertEquals(List.of(task), tasks, "Выданный список изменился вместе с менеджером.");
+        assertEquals(List.of(task, newTask), taskManager.getTasks(), "Список задач не обновился.");
+        assertEquals(List.of(task, newTask), taskManager.getPrioritizedTasks(), "Приоритетный список не обновился.");
+    }
+
+    @Test
+    void readsReturnMutableCopiesForUpdate() {
+        Task task = taskManager.addTask(new Task("Task", "Task"));
+        Epic epic = taskManager.addEpic(new Epic("Epic", "Epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask("Subtask", "Subtask", epic.getId()));
+
+        Task readTask = taskManager.getTask(task.getId());
+        assertNotSame(readTask, taskManager.getTask(task.getId()), "Чтения получили один и тот же объект.");
+        readTask.setName("Changed");
+        assertEquals("Task", taskManager.getTask(task.getId()).getName(), "Изменение копии попало в менеджер.");
+        assertEquals("Task", taskManager.getHistory().getLast().getName(), "Изменение копии попало в историю.");
+        taskManager.updateTask(readTask);
+        assertEquals("Changed", taskManager.getTask(task.getId()).getName(), "Чтение вернуло устаревшую задачу.");
+
+        Epic readEpic = taskManager.getEpic(epic.getId());
+        readEpic.setSubtasks(null);
+        assertEquals(List.of(subtask.getId()), taskManager.getEpic(epic.getId()).getSubtasks(),
+                "Изменение копии эпика попало в менеджер.");
+        taskManager.updateEpic(readEpic);
+        assertEquals(List.of(subtask.getId()), taskManager.getEpic(epic.getId()).getSubtasks(),
+                "Обновление эпика изменило его подзадачи.");
+    }
+
+    @Test
+    void readsSeeChangesOfTaskAndItsEpic() {
+        Task task = taskManager.addTask(new Task("Task", "Task"));
+        Epic epic = taskManager.addEpic(new Epic("Epic", "Epic"));
+        assertEquals(List.of(), taskManager.getEpic(epic.getId()).getSubtasks(), "Неверные подзадачи эпика.");
+        taskManager.getTask(task.getId());
+
+        Subtask subtask = taskManager.addSubtask(new Subtask("Subtask", "Subtask", epic.getId()));
+        assertEquals(List.of(subtask.getId()), taskManager.getEpic(epic.getId()).getSubtasks(),
+                "Чтение эпика не увидело новую подзадачу.");
+        taskManager.updateSubtask(new Subtask(subtask.getId(), TaskStatus.DONE, "Subtask", "Subtask", epic.getId()));
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(epic.getId()).getStatus(),
+                "Чтение эпика не увидело пересчет статуса.");
+        assertEquals("Task", taskManager.getTask(task.getId()).getName(), "Неверно прочитана неизмененная задача.");
+
+        taskManager.deleteSubtask(subtask.getId());
+        assertEquals(List.of(), taskManager.getEpic(epic.getId()).getSubtasks(),
+                "Чтение эпика не увидело удаление подзадачи.");
+        assertThrows(NotFoundException.class, () -> taskManager.getSubtask(subtask.getId()));
+    }
+}
@@ -1,8 +1,16 @@
+import kanban.model.Epic;
+import kanban.model.EpicRecord;
 import kanban.model.Task;
+import kanban.model.TaskRecord;
 import kanban.model.TaskStatus;
+import kanban.model.TaskValue;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TaskTest {
 
@@ -13,4 +21,26 @@ class TaskTest {
 
         assertEquals(task1, task2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void valuesAreImmutableAndConvertBack() {
+        Task task = new Task(101, TaskStatus.NEW, "Задача 1", "Описание задачи 1");
+        TaskRecord value = (TaskRecord) TaskValue.of(task);
+        task.setName("Другое имя");
+
+        TaskRecord changed = value.withName("Новое имя").withStatus(TaskStatus.DONE);
+        assertEquals("Задача 1", value.name(), "Значение изменилось вместе с задачей.");
+        assertEquals(new TaskRecord(101, TaskStatus.DONE, "Новое имя", "Описание задачи 1", null, null), changed,
+                "Неверное значение после with...");
+        assertTrue(new Task(101, TaskStatus.DONE, "Новое имя", "Описание задачи 1")
+                .equalsByAllFields(changed.toTask()), "Задача из значения отличается.");
+
+        Epic epic = new Epic(102, TaskStatus.NEW, "Эпик", "Эпик");
+        epic.addSubtask(103);
+        EpicRecord epicValue = EpicRecord.of(epic);
+        epic.addSubtask(104);
+        assertEquals(List.of(103), epicValue.subtasks(), "Подзадачи значения изменились вместе с эпиком.");
+        assertThrows(UnsupportedOperationException.class, () -> epicValue.subtasks().add(105),
+                "Подзадачи значения можно изменить.");
+    }
+}
@@ -0,0 +1,113 @@
+import kanban.model.*;
+import kanban.service.ConcurrentTaskManager;
+import kanban.service.FileBackedTaskManager;
+import kanban.service.FileBackedTaskManager.Durability;
+import kanban.service.FileBackedTaskManager.PersistenceMode;
+import kanban.service.TaskManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+    @BeforeEach
+    void setUp() throws IOException {
+        File file = File.createTempFile("WriteBehindFileBackedTaskManagerTest", ".csv");
+        taskManager = new FileBackedTaskManager(file, PersistenceMode.WRITE_BEHIND);
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskManager.close();
+    }
+
+    @Test
+    void changesAreCoalescedUntilFlush() {
+        taskManager.setWriteBehindWindow(Duration.ofMinutes(1));
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Epic epic = taskManager.addEpic(new Epic("e1", "e1"));
+        for (int i = 0; i < 100; i++) {
+            taskManager.addTask(new Task("Task" + i, "Task" + i, startTime.plusHours(i), Duration.ofMinutes(30)));
+            taskManager.addSubtask(new Subtask("Subtask" + i, "Subtask" + i, epic.getId()));
+        }
+
+        assertEquals(0L, taskManager.getFile().length(), "Снимок записан до окончания окна группировки.");
+
+        taskManager.flush();
+        FileBackedTaskManager taskManagerFromFile = FileBackedTaskManager.loadFromFile(taskManager.getFile());
+        assertEquals(100, taskManagerFromFile.getTasks().size(), "После flush записаны не все задачи.");
+        assertEquals(100, taskManagerFromFile.getSubtasks().size(), "После flush записаны не все сабтаски.");
+        assertEquals(taskManager.getPrioritizedTasks(), taskManagerFromFile.getPrioritizedTasks(),
+                "Порядок задач не совпадает.");
+    }
+
+    @Test
+    void batchSizeTriggersWrite() {
+        taskManager.setWriteBehindWindow(Duration.ofMinutes(1));
+        taskManager.setWriteBehindBatchSize(3);
+
+        taskManager.addTask(new Task("t1", "t1"));
+        taskManager.addTask(new Task("t2", "t2"));
+        // третье изменение набирает пакет, поэтому снимок пишется сразу, не дожидаясь окна
+        taskManager.setDurability(Durability.SYNC);
+        taskManager.addTask(new Task("t3", "t3"));
+
+        assertEquals(3, FileBackedTaskManager.loadFromFile(taskManager.getFile()).getTasks().size(),
+                "Изменение с Durability.SYNC вернулось до записи снимка.");
+    }
+
+    @Test
+    void syncDurabilityWaitsForCommit() {
+        taskManager.setDurability(Durability.SYNC);
+
+        Task task = taskManager.addTask(new Task("t1", "t1"));
+        assertEquals(1, FileBackedTaskManager.loadFromFile(taskManager.getFile()).getTasks().size(),
+                "Изменение с Durability.SYNC вернулось до записи снимка.");
+
+        taskManager.deleteTask(task.getId());
+        assertTrue(FileBackedTaskManager.loadFromFile(taskManager.getFile()).getTasks().isEmpty(),
+                "Изменение с Durability.SYNC вернулось до записи снимка.");
+    }
+
+    @Test
+    void syncChangesShareCommitUnderConcurrentWrapper() throws InterruptedException {
+        taskManager.setDurability(Durability.SYNC);
+        taskManager.setWriteBehindWindow(Duration.ofMillis(300));
+        TaskManager concurrentTaskManager = new ConcurrentTaskManager(taskManager);
+        final int threadsCount = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadsCount; i++) {
+            String name = "Task" + i;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException exception) {
+                    return;
+                }
+                concurrentTaskManager.addTask(new Task(name, name));
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(threadsCount, FileBackedTaskManager.loadFromFile(taskManager.getFile()).getTasks().size(),
+                "Изменение с Durability.SYNC вернулось до записи снимка.");
+        assertTrue(taskManager.getCommitsCount() < threadsCount,
+                "Каждое изменение записано отдельным снимком: блокировка держится во время ожидания записи.");
+    }
+}
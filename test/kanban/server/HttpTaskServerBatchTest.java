@@ -0,0 +1,72 @@
+package kanban.server;
+
+import kanban.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTaskServerBatchTest extends HttpTaskServerTest {
+
+    public HttpTaskServerBatchTest() throws IOException {
+        super();
+    }
+
+    private HttpResponse<String> postBatch(List<Operation> operations) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(operations)))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void testPostBatch() throws IOException, InterruptedException {
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task oldTask = taskManager.addTask(new Task("Old", "Old"));
+
+        HttpResponse<String> response = postBatch(List.of(
+                new Operation(Operation.Type.ADD, new Epic("Epic", "Epic")),
+                new Operation(Operation.Type.ADD, new Subtask("Subtask", "Subtask", -1, start, Duration.ofHours(1))),
+                new Operation(Operation.Type.DELETE, TaskTypes.TASK, oldTask.getId())));
+
+        assertEquals(200, response.statusCode());
+        assertTrue(taskManager.getTasks().isEmpty(), "Задача не удалилась.");
+        assertEquals(1, taskManager.getEpics().size(), "Эпик не добавился.");
+        Subtask subtask = taskManager.getSubtasks().getFirst();
+        assertEquals(taskManager.getEpics().getFirst().getId(), subtask.epic, "Сабтаск не привязан к эпику.");
+        // в ответе результаты операций, в том числе назначенные id
+        assertTrue(response.body().contains("\"id\":" + subtask.getId()), "В ответе нет id добавленного сабтаска.");
+    }
+
+    @Test
+    public void testPostBatchIsAtomic() throws IOException, InterruptedException {
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        taskManager.addTask(new Task("Task", "Task", start, Duration.ofHours(1)));
+
+        HttpResponse<String> response = postBatch(List.of(
+                new Operation(Operation.Type.ADD, new Task("New", "New")),
+                new Operation(Operation.Type.ADD, new Task("Overlap", "Overlap", start, Duration.ofHours(1)))));
+        assertEquals(406, response.statusCode());
+        assertEquals(1, taskManager.getTasks().size(), "Пакет применился частично.");
+
+        response = postBatch(List.of(new Operation(Operation.Type.DELETE, TaskTypes.TASK, 1000)));
+        assertEquals(404, response.statusCode());
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString("[{\"type\":\"ADD\",\"taskType\":\"NOTE\"}]"))
+                .build();
+        assertEquals(400, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+}
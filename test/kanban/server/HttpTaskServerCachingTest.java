@@ -0,0 +1,122 @@
+package kanban.server;
+
+import kanban.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTaskServerCachingTest extends HttpTaskServerTest {
+
+    public HttpTaskServerCachingTest() throws IOException {
+        super();
+    }
+
+    @Test
+    public void testConditionalGet() throws IOException, InterruptedException {
+        taskManager.addTask(new Task("Test 1", "Testing task 1"));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        String entityTag = response.headers().firstValue("ETag").orElse(null);
+        assertNotNull(entityTag, "Ответ должен содержать ETag.");
+        assertTrue(response.headers().firstValue("Last-Modified").isPresent(), "Ответ должен содержать Last-Modified.");
+
+        // данные не менялись - тело не передается
+        HttpRequest conditionalRequest = HttpRequest.newBuilder().uri(url).header("If-None-Match", entityTag)
+                .GET().build();
+        response = client.send(conditionalRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, response.statusCode());
+        assertTrue(response.body().isEmpty(), "У ответа 304 не должно быть тела.");
+
+        // чтение задачи пишет только историю и не меняет ревизию
+        taskManager.getTask(taskManager.getTasks().getFirst().getId());
+        response = client.send(conditionalRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, response.statusCode());
+
+        taskManager.addTask(new Task("Test 2", "Testing task 2"));
+        response = client.send(conditionalRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertNotEquals(entityTag, response.headers().firstValue("ETag").orElse(null), "ETag не изменился.");
+    }
+
+    @Test
+    public void testGzipForLargeLists() throws IOException, InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            taskManager.addTask(new Task("Test " + i, "Testing task " + i));
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks"))
+                .header("Accept-Encoding", "gzip").GET().build();
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null),
+                "Большой ответ должен сжиматься.");
+        String body;
+        try (InputStream input = new GZIPInputStream(response.body())) {
+            body = new String(input.readAllBytes(), HttpTaskServer.DEFAULT_CHARSET);
+        }
+        assertEquals(100, gson.fromJson(body, Task[].class).length, "Неверное количество задач.");
+
+        // маленький ответ отдается без сжатия
+        request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks?limit=2"))
+                .header("Accept-Encoding", "gzip").GET().build();
+        HttpResponse<String> smallResponse = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertTrue(smallResponse.headers().firstValue("Content-Encoding").isEmpty(),
+                "Маленький ответ не должен сжиматься.");
+    }
+
+    @Test
+    public void testResponseCache() throws IOException, InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            taskManager.addTask(new Task("Test " + i, "Testing task " + i));
+        }
+        ResponseCache responseCache = taskServer.getResponseCache();
+        long hits = responseCache.getHits();
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks?limit=10"))
+                .GET().build();
+        HttpResponse<String> first = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> second = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, second.statusCode());
+        assertEquals(first.body(), second.body(), "Ответ из кэша отличается.");
+        assertEquals(first.headers().firstValue("X-Next-Cursor"), second.headers().firstValue("X-Next-Cursor"),
+                "Курсор из кэша отличается.");
+        assertEquals(hits + 1, responseCache.getHits(), "Повторный запрос не обслужен из кэша.");
+
+        // сжатое тело строится из закэшированного
+        HttpRequest gzipRequest = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks"))
+                .header("Accept-Encoding", "gzip").GET().build();
+        client.send(gzipRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<InputStream> gzipResponse = client.send(gzipRequest, HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals("gzip", gzipResponse.headers().firstValue("Content-Encoding").orElse(null));
+        try (InputStream input = new GZIPInputStream(gzipResponse.body())) {
+            assertEquals(50, gson.fromJson(new String(input.readAllBytes(), HttpTaskServer.DEFAULT_CHARSET),
+                    Task[].class).length, "Неверное количество задач.");
+        }
+        assertEquals(hits + 2, responseCache.getHits(), "Сжатый ответ не обслужен из кэша.");
+
+        // изменение сбрасывает кэш
+        taskManager.addTask(new Task("Test", "Testing task"));
+        HttpResponse<String> third = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks")).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(51, gson.fromJson(third.body(), Task[].class).length, "Из кэша отдан устаревший ответ.");
+
+        HttpResponse<String> metrics = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/metrics")).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, metrics.statusCode());
+        assertTrue(metrics.body().contains("\"hits\":" + responseCache.getHits()), "Метрики кэша не отдаются.");
+    }
+}
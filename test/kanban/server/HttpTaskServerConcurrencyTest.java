@@ -0,0 +1,130 @@
+package kanban.server;
+
+import com.google.gson.Gson;
+import kanban.model.Task;
+import kanban.server.HttpTaskServer.ExecutorMode;
+import kanban.service.FileBackedTaskManager;
+import kanban.service.FileBackedTaskManager.PersistenceMode;
+import kanban.service.InMemoryTaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTaskServerConcurrencyTest {
+    private static final int PORT = 8081;
+    private static final int CLIENTS = 20;
+    private static final Duration SLOW_READ = Duration.ofMillis(200);
+
+    private HttpTaskServer taskServer;
+
+    /**
+     * Менеджер с медленным чтением списка, чтобы было видно, обрабатываются ли запросы параллельно.
+     */
+    static class SlowTaskManager extends InMemoryTaskManager {
+        @Override
+        public List<Task> getTasks() {
+            try {
+                Thread.sleep(SLOW_READ);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return super.getTasks();
+        }
+    }
+
+    @AfterEach
+    public void shutDown() {
+        taskServer.stop();
+    }
+
+    private Duration getTasksConcurrently() {
+        HttpClient client = HttpClient.newHttpClient();
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            // разные адреса, чтобы запросы не обслуживались из кэша ответов
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:" + PORT + "/tasks?client=" + i))
+                    .GET()
+                    .build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        responses.forEach(response -> assertEquals(200, response.join().statusCode()));
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    @Test
+    public void virtualThreadsServeClientsConcurrently() throws Exception {
+        taskServer = new HttpTaskServer(new SlowTaskManager(), PORT, ExecutorMode.VIRTUAL_THREADS);
+        taskServer.start();
+
+        Duration elapsed = getTasksConcurrently();
+        assertTrue(elapsed.compareTo(SLOW_READ.multipliedBy(CLIENTS / 2)) < 0,
+                "Запросы обрабатываются последовательно: " + elapsed.toMillis() + " мс.");
+    }
+
+    @Test
+    public void singleThreadServesClientsSequentially() throws Exception {
+        taskServer = new HttpTaskServer(new SlowTaskManager(), PORT, ExecutorMode.SINGLE_THREAD);
+        taskServer.start();
+
+        Duration elapsed = getTasksConcurrently();
+        assertTrue(elapsed.compareTo(SLOW_READ.multipliedBy(CLIENTS)) >= 0,
+                "Однопоточный сервер обработал запросы параллельно: " + elapsed.toMillis() + " мс.");
+    }
+
+    @Test
+    public void threadPoolKeepsManagerConsistent() throws Exception {
+        taskServer = new HttpTaskServer(new InMemoryTaskManager(), PORT, ExecutorMode.THREAD_POOL);
+        taskServer.setThreadPoolSize(4);
+        taskServer.start();
+        Gson gson = taskServer.getGson();
+
+        HttpClient client = HttpClient.newHttpClient();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < CLIENTS * 5; i++) {
+            String taskJson = gson.toJson(new Task("Task" + i, "Task" + i));
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:" + PORT + "/tasks"))
+                    .POST(HttpRequest.BodyPublishers.ofString(taskJson))
+                    .build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        responses.forEach(response -> assertEquals(201, response.join().statusCode()));
+
+        List<Task> tasks = taskServer.getTaskManager().getTasks();
+        assertEquals(CLIENTS * 5, tasks.size(), "Созданы не все задачи.");
+        assertEquals(CLIENTS * 5, tasks.stream().map(Task::getId).distinct().count(), "id задач повторяются.");
+    }
+
+    @Test
+    public void stopWritesPendingChangesOfManager() throws Exception {
+        File file = File.createTempFile("HttpTaskServerConcurrencyTest", ".csv");
+        FileBackedTaskManager taskManager = new FileBackedTaskManager(file, PersistenceMode.WRITE_BEHIND);
+        // без остановки сервера снимок не записался бы до конца окна группировки
+        taskManager.setWriteBehindWindow(Duration.ofHours(1));
+        taskServer = new HttpTaskServer(taskManager, PORT, ExecutorMode.VIRTUAL_THREADS);
+        taskServer.start();
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + PORT + "/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofString(taskServer.getGson().toJson(new Task("Task", "Task"))))
+                .build();
+        assertEquals(201, HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        taskServer.stop();
+
+        assertEquals(1, FileBackedTaskManager.loadFromFile(file).getTasks().size(),
+                "Остановка сервера не записала изменения менеджера.");
+    }
+}
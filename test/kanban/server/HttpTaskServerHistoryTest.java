@@ -55,4 +55,34 @@ public class HttpTaskServerHistoryTest extends HttpTaskServerTest {
 
         assertEquals(2, tasks.size(), "Неверное количество задач.");
     }
-}
\ No newline at end of file
+
+    private List<Task> send(String path, String clientId) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .header("X-Client-Id", clientId)
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return path.startsWith("/history")
+                ? gson.fromJson(response.body(), new HttpTaskServerTasksTest.TaskListTypeToken().getType()) : null;
+    }
+
+    @Test
+    public void testHistoryIsPerClient() throws IOException, InterruptedException {
+        Task task1 = taskManager.addTask(new Task("Test 1", "Testing task 1"));
+        Task task2 = taskManager.addTask(new Task("Test 2", "Testing task 2"));
+
+        send("/tasks/" + task1.getId(), "alice");
+        send("/tasks/" + task2.getId(), "bob");
+        send("/tasks/" + task1.getId(), "bob");
+
+        assertEquals(List.of(task1), send("/history", "alice"), "Неверная история первого клиента.");
+        assertEquals(List.of(task2, task1), send("/history", "bob"), "Неверная история второго клиента.");
+        assertEquals(List.of(), taskManager.getHistory(), "Просмотры клиентов попали в общую историю.");
+
+        taskManager.deleteTask(task1.getId());
+        assertEquals(List.of(task2), send("/history", "bob"), "Удаленная задача осталась в истории клиента.");
+    }
+}
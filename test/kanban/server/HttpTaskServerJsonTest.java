@@ -0,0 +1,93 @@
+package kanban.server;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSerializer;
+import kanban.model.Epic;
+import kanban.model.SortedIntSet;
+import kanban.model.Subtask;
+import kanban.model.Task;
+import kanban.model.TaskStatus;
+import kanban.server.typeadapters.DurationTypeAdapter;
+import kanban.server.typeadapters.LocalDateTimeTypeAdapter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTaskServerJsonTest extends HttpTaskServerTest {
+
+    public HttpTaskServerJsonTest() throws IOException {
+        super();
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080" + path)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void testCompactByDefaultAndPrettyOnRequest() throws IOException, InterruptedException {
+        taskManager.addTask(new Task("Test 1", "Testing task 1"));
+
+        HttpResponse<String> compact = get("/tasks");
+        assertEquals(200, compact.statusCode());
+        assertFalse(compact.body().contains("\n"), "Ответ по умолчанию должен быть компактным.");
+
+        HttpResponse<String> pretty = get("/tasks?pretty=true");
+        assertEquals(200, pretty.statusCode());
+        assertTrue(pretty.body().contains("\n"), "С pretty=true ответ должен быть отформатирован.");
+        assertEquals(gson.toJsonTree(gson.fromJson(compact.body(), Task[].class)),
+                gson.toJsonTree(gson.fromJson(pretty.body(), Task[].class)), "Содержимое ответов различается.");
+    }
+
+    @Test
+    public void testTypeAdaptersMatchReflectiveJson() {
+        // Gson без адаптеров задач сериализует поля рефлексией, как раньше
+        Gson reflectiveGson = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+                .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
+                // раньше id подзадач эпика хранились в ArrayList<Integer> и выводились массивом
+                .registerTypeAdapter(SortedIntSet.class,
+                        (JsonSerializer<SortedIntSet>) (set, type, context) -> context.serialize(set.asList()))
+                .serializeNulls()
+                .create();
+        Task task = new Task(1, TaskStatus.IN_PROGRESS, "Task", "Task \"quoted\"",
+                LocalDateTime.of(2024, 2, 29, 9, 5), Duration.ofMinutes(90));
+        Subtask subtask = new Subtask(3, TaskStatus.DONE, "Subtask", null, 2,
+                LocalDateTime.of(2099, 12, 31, 23, 50), Duration.ofMinutes(5));
+        Epic epic = new Epic(2, TaskStatus.DONE, "Epic", "Epic");
+        epic.addSubtask(3);
+        epic.setStartTime(subtask.getStartTime());
+        epic.setDuration(subtask.getDuration());
+        epic.setEndTime(subtask.getEndTime());
+
+        for (Task value : new Task[]{task, subtask, epic, new Task("New", "New")}) {
+            assertEquals(reflectiveGson.toJsonTree(value), gson.toJsonTree(value), "JSON отличается от прежнего.");
+            Task restored = gson.fromJson(gson.toJson(value), value.getClass());
+            assertTrue(value.equalsByAllFields(restored), "Задача не восстановилась из JSON: " + restored);
+        }
+    }
+
+    @Test
+    public void testDateTimeFastPathMatchesFormatter() {
+        LocalDateTime dateTime = LocalDateTime.of(2000, 1, 1, 0, 0);
+        for (int i = 0; i < 5_000; i++) {
+            dateTime = dateTime.plusMinutes(7919);
+            String expected = dateTime.format(LocalDateTimeTypeAdapter.DATE_TIME_FORMATTER);
+            assertEquals(expected, LocalDateTimeTypeAdapter.format(dateTime), "Форматирование отличается.");
+            assertEquals(LocalDateTime.parse(expected, LocalDateTimeTypeAdapter.DATE_TIME_FORMATTER),
+                    LocalDateTimeTypeAdapter.parse(expected), "Разбор отличается.");
+        }
+        assertEquals(LocalDateTime.of(1999, 1, 1, 0, 0).format(LocalDateTimeTypeAdapter.DATE_TIME_FORMATTER),
+                LocalDateTimeTypeAdapter.format(LocalDateTime.of(1999, 1, 1, 0, 0)), "Форматирование отличается.");
+    }
+}
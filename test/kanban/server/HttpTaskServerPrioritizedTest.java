@@ -7,11 +7,14 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
@@ -53,4 +56,61 @@ public class HttpTaskServerPrioritizedTest extends HttpTaskServerTest {
         assertEquals(2, tasks.size(), "Неверное количество задач.");
         assertEquals(subtask1.getId(), tasks.get(0).getId(), "Неверный порядок задач.");
     }
+
+    @Test
+    public void testGetPrioritizedInTimeWindow() throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 9, 0);
+        for (int i = 0; i < 6; i++) {
+            taskManager.addTask(new Task("Test " + i, "Testing task " + i, start.plusHours(i), Duration.ofMinutes(30)));
+        }
+        List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/prioritized?from=01.05.24%2010:00&to=01.05.24%2014:00&limit=2");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        List<Task> tasks = gson.fromJson(response.body(), new HttpTaskServerTasksTest.TaskListTypeToken().getType());
+        assertEquals(prioritizedTasks.subList(1, 3), tasks, "Неверная первая страница промежутка.");
+
+        String cursor = response.headers().firstValue("X-Next-Cursor").orElseThrow();
+        url = URI.create(url + "&after=" + cursor.replace(" ", "%20"));
+        response = client.send(HttpRequest.newBuilder().uri(url).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        tasks = gson.fromJson(response.body(), new HttpTaskServerTasksTest.TaskListTypeToken().getType());
+        assertEquals(prioritizedTasks.subList(3, 5), tasks, "Неверная вторая страница промежутка.");
+
+        url = URI.create("http://localhost:8080/prioritized?from=bad");
+        response = client.send(HttpRequest.newBuilder().uri(url).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    public void testGetPrioritizedPagesThroughEqualStartTimes() throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 9, 0);
+        for (int i = 0; i < 3; i++) {
+            taskManager.addTask(new Task("Test " + i, "Testing task " + i, start, Duration.ZERO));
+        }
+        List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+
+        HttpClient client = HttpClient.newHttpClient();
+        List<Task> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            URI url = URI.create("http://localhost:8080/prioritized?limit=1"
+                    + (cursor == null ? "" : "&after=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8)));
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            List<Task> tasks = gson.fromJson(response.body(), new HttpTaskServerTasksTest.TaskListTypeToken().getType());
+            pages.addAll(tasks);
+            cursor = response.headers().firstValue("X-Next-Cursor").orElse(null);
+        } while (cursor != null && pages.size() <= prioritizedTasks.size());
+        assertEquals(prioritizedTasks, pages, "Задачи с одинаковым началом пропущены при постраничном обходе.");
+
+        URI url = URI.create("http://localhost:8080/prioritized?limit=1&after=bad");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
 }
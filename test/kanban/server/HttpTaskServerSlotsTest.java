@@ -0,0 +1,47 @@
+package kanban.server;
+
+import com.google.gson.reflect.TypeToken;
+import kanban.model.Task;
+import kanban.model.TimeSlot;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HttpTaskServerSlotsTest extends HttpTaskServerTest {
+
+    public HttpTaskServerSlotsTest() throws IOException {
+        super();
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080" + path)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void testGetSlots() throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 9, 0);
+        taskManager.addTask(new Task("Test 1", "Testing task 1", start, Duration.ofMinutes(60)));
+        taskManager.addTask(new Task("Test 2", "Testing task 2", start.plusMinutes(90), Duration.ofMinutes(60)));
+
+        HttpResponse<String> response = get("/slots?duration=30&from=01.05.24%2009:00&to=01.05.24%2012:00");
+        assertEquals(200, response.statusCode());
+        List<TimeSlot> slots = gson.fromJson(response.body(), new TypeToken<List<TimeSlot>>() {
+        }.getType());
+        assertEquals(List.of(new TimeSlot(start.plusMinutes(60), start.plusMinutes(90)),
+                new TimeSlot(start.plusMinutes(150), start.plusMinutes(180))), slots, "Неверные свободные промежутки.");
+
+        assertEquals(400, get("/slots?from=01.05.24%2009:00").statusCode(), "Принят запрос без длительности.");
+        assertEquals(400, get("/slots?duration=0").statusCode(), "Принята нулевая длительность.");
+    }
+}
@@ -178,4 +178,57 @@ public class HttpTaskServerTasksTest extends HttpTaskServerTest {
 
         assertEquals(0, taskManager.getTasks().size(), "Задача не удалилась.");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetManyTasksIsStreamed() throws IOException, InterruptedException {
+        final int count = 10_000;
+        for (int i = 0; i < count; i++) {
+            taskManager.addTask(new Task("Test " + i, "Testing task " + i));
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        // длина заранее не известна, ответ пишется частями
+        assertEquals("chunked", response.headers().firstValue("Transfer-Encoding").orElse(null),
+                "Ответ должен передаваться частями.");
+        List<Task> tasks = gson.fromJson(response.body(), new TaskListTypeToken().getType());
+        assertEquals(count, tasks.size(), "Неверное количество задач.");
+    }
+
+    @Test
+    public void testGetTasksPage() throws IOException, InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            taskManager.addTask(new Task("Test " + i, "Testing task " + i));
+        }
+        List<Task> allTasks = taskManager.getTasks();
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks?limit=2&fields=id,name");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        List<Task> tasks = gson.fromJson(response.body(), new TaskListTypeToken().getType());
+        assertEquals(2, tasks.size(), "Неверное количество задач на странице.");
+        assertEquals(allTasks.get(1).getId(), tasks.get(1).getId(), "Неверная задача на странице.");
+        assertEquals(allTasks.get(1).getName(), tasks.get(1).getName(), "Неверное имя задачи.");
+        assertFalse(response.body().contains("description"), "Поле вне проекции не должно возвращаться.");
+
+        // курсор следующей страницы приходит в заголовке
+        String cursor = response.headers().firstValue("X-Next-Cursor").orElse(null);
+        assertEquals(String.valueOf(allTasks.get(1).getId()), cursor, "Неверный курсор следующей страницы.");
+        url = URI.create("http://localhost:8080/tasks?limit=10&after=" + cursor);
+        response = client.send(HttpRequest.newBuilder().uri(url).GET().build(), HttpResponse.BodyHandlers.ofString());
+        tasks = gson.fromJson(response.body(), new TaskListTypeToken().getType());
+        assertEquals(allTasks.subList(2, 5), tasks, "Неверная следующая страница.");
+        assertTrue(response.headers().firstValue("X-Next-Cursor").isEmpty(), "У последней страницы не должно быть курсора.");
+
+        url = URI.create("http://localhost:8080/tasks?limit=abc");
+        response = client.send(HttpRequest.newBuilder().uri(url).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+}
@@ -0,0 +1,120 @@
+package kanban.server;
+
+import kanban.model.*;
+import kanban.service.TaskParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTaskServerTransferTest extends HttpTaskServerTest {
+
+    public HttpTaskServerTransferTest() throws IOException {
+        super();
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080" + path)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void fillBoard() {
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        taskManager.addTask(new Task("Task", "Task", start, Duration.ofHours(1)));
+        Epic epic = taskManager.addEpic(new Epic("Epic", "Epic"));
+        taskManager.addSubtask(new Subtask("Subtask 1", "Subtask 1", epic.getId(), start.plusHours(2),
+                Duration.ofHours(1)));
+        taskManager.addSubtask(new Subtask("Subtask 2", "Subtask 2", epic.getId()));
+    }
+
+    private void assertSameBoard(List<Task> tasks, List<Epic> epics, List<Subtask> subtasks) {
+        assertEquals(tasks.size(), taskManager.getTasks().size(), "Неверное количество задач.");
+        assertEquals(epics.size(), taskManager.getEpics().size(), "Неверное количество эпиков.");
+        assertEquals(subtasks.size(), taskManager.getSubtasks().size(), "Неверное количество сабтасков.");
+        Epic epic = taskManager.getEpics().getFirst();
+        assertEquals(epics.getFirst().getStatus(), epic.getStatus(), "Статус эпика не совпадает.");
+        assertEquals(epics.getFirst().getStartTime(), epic.getStartTime(), "Начало эпика не совпадает.");
+        for (Subtask subtask : taskManager.getSubtasks()) {
+            assertEquals(epic.getId(), subtask.epic, "Сабтаск не привязан к новому эпику.");
+        }
+    }
+
+    @Test
+    public void testExportAndImportCsv() throws IOException, InterruptedException {
+        fillBoard();
+        List<Task> tasks = taskManager.getTasks();
+        List<Epic> epics = taskManager.getEpics();
+        List<Subtask> subtasks = taskManager.getSubtasks();
+
+        HttpResponse<String> export = get("/export");
+        assertEquals(200, export.statusCode());
+        String[] lines = export.body().split("\n");
+        assertEquals(TaskParser.getHeader(), lines[0], "Нет заголовка CSV.");
+        assertEquals(5, lines.length, "Неверное количество строк выгрузки.");
+
+        taskManager.deleteAllTasks();
+        taskManager.deleteAllEpics();
+        HttpResponse<String> response = post("/import?batchSize=2", export.body());
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"imported\":4}", response.body(), "Неверный ответ импорта.");
+        assertSameBoard(tasks, epics, subtasks);
+    }
+
+    @Test
+    public void testExportAndImportNdjson() throws IOException, InterruptedException {
+        fillBoard();
+        List<Task> tasks = taskManager.getTasks();
+        List<Epic> epics = taskManager.getEpics();
+        List<Subtask> subtasks = taskManager.getSubtasks();
+
+        HttpResponse<String> export = get("/export?format=ndjson");
+        assertEquals(200, export.statusCode());
+        assertEquals(4, export.body().split("\n").length, "Неверное количество строк выгрузки.");
+
+        taskManager.deleteAllTasks();
+        taskManager.deleteAllEpics();
+        assertEquals(200, post("/import?format=ndjson", export.body()).statusCode());
+        assertSameBoard(tasks, epics, subtasks);
+    }
+
+    @Test
+    public void testImportRejectsInvalidInput() throws IOException, InterruptedException {
+        assertEquals(400, post("/import", "id,name\n").statusCode(), "Принят чужой заголовок.");
+        assertEquals(400, post("/import", TaskParser.getHeader() + "\n1,TASK,broken\n").statusCode(),
+                "Принята битая строка.");
+        assertEquals(404, post("/import", TaskParser.getHeader() + "\n2,SUBTASK,s,NEW,s,1,,\n").statusCode(),
+                "Принят сабтаск без эпика.");
+        assertEquals(400, get("/export?format=xml").statusCode(), "Принят неизвестный формат.");
+        assertTrue(taskManager.getTasks().isEmpty(), "Задачи добавились из некорректного импорта.");
+    }
+
+    @Test
+    public void testFailedImportReportsCommittedCount() throws IOException, InterruptedException {
+        String body = TaskParser.getHeader() + "\n1,TASK,First,NEW,First,,,\n2,TASK,Second,NEW,Second,,,\n"
+                + "3,TASK,broken\n";
+        HttpResponse<String> response = post("/import?batchSize=2", body);
+
+        assertEquals(400, response.statusCode(), "Принята битая строка.");
+        assertEquals("2", response.headers().firstValue("X-Imported-Count").orElse(null),
+                "Не сообщено число импортированных задач.");
+        assertEquals(2, taskManager.getTasks().size(), "Примененный пакет не остался после ошибки.");
+    }
+}